@@ -6,6 +6,8 @@ import api from '../utils/api';
 
 const CommentSection = ({ postId, onCommentAdded, onCommentDeleted, onCommentEdited, currentUser }) => {
   const [comments, setComments] = useState([]);
+  const [olderCursor, setOlderCursor] = useState(null);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const [content, setContent] = useState('');
   const [loading, setLoading] = useState(true);
   const [submitting, setSubmitting] = useState(false);
@@ -21,7 +23,9 @@ const CommentSection = ({ postId, onCommentAdded, onCommentDeleted, onCommentEdi
     try {
       setLoading(true);
       const response = await api.get(`/api/posts/${postId}/comments`);
-      setComments(response.data);
+      // The API pages newest first; the list reads oldest first
+      setComments([...response.data.items].reverse());
+      setOlderCursor(response.data.nextCursor);
     } catch (err) {
       console.error('Error fetching comments:', err);
       setError('Failed to load comments');
@@ -30,6 +34,20 @@ const CommentSection = ({ postId, onCommentAdded, onCommentDeleted, onCommentEdi
     }
   };
 
+  const fetchOlderComments = async () => {
+    try {
+      setLoadingOlder(true);
+      const response = await api.get(`/api/posts/${postId}/comments`, { params: { cursor: olderCursor } });
+      setComments((current) => [...[...response.data.items].reverse(), ...current]);
+      setOlderCursor(response.data.nextCursor);
+    } catch (err) {
+      console.error('Error fetching comments:', err);
+      alert('Failed to load older comments');
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
   const handleSubmit = async (e) => {
     e.preventDefault();
     
@@ -121,6 +139,15 @@ const CommentSection = ({ postId, onCommentAdded, onCommentDeleted, onCommentEdi
         <p className="text-gray-500 text-sm">No comments yet. Be the first to comment!</p>
       ) : (
         <div className="space-y-4 mb-4">
+          {olderCursor && (
+            <button
+              onClick={fetchOlderComments}
+              disabled={loadingOlder}
+              className="text-sm text-primary-600 hover:underline disabled:text-gray-400"
+            >
+              {loadingOlder ? 'Loading...' : 'Load older comments'}
+            </button>
+          )}
           {comments.map(comment => (
             <div key={comment.id} className="flex gap-2">
               <div className="flex-shrink-0">
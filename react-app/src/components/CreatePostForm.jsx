@@ -35,6 +35,10 @@ const CreatePostForm = ({ onPostCreated, currentUser }) => {
     
       setContent('');
       setMediaFiles([]);
+      const failed = response.data.failedUploads || [];
+      if (failed.length > 0) {
+        setError(`Some files could not be uploaded: ${failed.map(f => f.filename).join(', ')}`);
+      }
       onPostCreated(response.data); // Pass the full response.data
     } catch (err) {
       console.error('Error creating post:', err);
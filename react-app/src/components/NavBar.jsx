@@ -43,15 +43,19 @@ const Navbar = () => {
 
   useEffect(() => {
     fetchUnreadCount();
-    const interval = setInterval(fetchUnreadCount, 60000);
-    return () => clearInterval(interval);
+    // New notifications are pushed by the server; EventSource reconnects on its own
+    const stream = new EventSource(`${api.defaults.baseURL}/api/notifications/stream`, { withCredentials: true });
+    // A like on a post with unread likes updates that notification rather than adding one, so ask for the count
+    stream.addEventListener('notification', fetchUnreadCount);
+    // Also on every reconnect, for whatever arrived while the stream was down
+    stream.onopen = fetchUnreadCount;
+    return () => stream.close();
   }, []);
 
   const fetchUnreadCount = async () => {
     try {
-      const response = await api.get('/api/notifications');
-      const unread = response.data.filter(notif => !notif.read).length;
-      setUnreadCount(unread);
+      const response = await api.get('/api/notifications/unread-count');
+      setUnreadCount(response.data.count);
     } catch (error) {
       console.error('Error fetching unread notifications:', error);
     }
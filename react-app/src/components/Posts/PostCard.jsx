@@ -11,7 +11,7 @@ import CommentSection from '../CommentSection';
 const PostCard = ({ post, currentUser, onDelete, onLike }) => {
   const navigate = useNavigate();
   const [showComments, setShowComments] = useState(false);
-  const [commentsCount, setCommentsCount] = useState(post?.comments?.length || 0);
+  const [commentsCount, setCommentsCount] = useState(post?.commentCount ?? post?.comments?.length ?? 0);
   const [loading, setLoading] = useState(false);
   const [isEditing, setIsEditing] = useState(false);
   const [isLiked, setIsLiked] = useState(post?.liked || false);
@@ -146,6 +146,7 @@ const PostCard = ({ post, currentUser, onDelete, onLike }) => {
         <PostContent
           content={post.content}
           mediaUrls={post.mediaUrls}
+          thumbnailUrls={post.thumbnailUrls}
         />
       )}
       <PostActions
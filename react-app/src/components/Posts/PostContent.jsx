@@ -1,6 +1,9 @@
 import React from 'react';
 
-const PostContent = ({ content, mediaUrls }) => {
+const PostContent = ({ content, mediaUrls, thumbnailUrls }) => {
+  // The small tiles only need the 320px thumbnail; older posts and videos fall back to the full URL
+  const thumbnailOf = (index) => thumbnailUrls?.[index] || mediaUrls[index];
+
   const renderMediaGallery = () => {
     if (!mediaUrls || mediaUrls.length === 0) return null;
 
@@ -53,7 +56,7 @@ const PostContent = ({ content, mediaUrls }) => {
               {mediaUrls.slice(1, 3).map((url, index) => (
                 <div key={index} className="rounded-lg overflow-hidden shadow-sm">
                   <img
-                    src={encodeURI(url)}
+                    src={encodeURI(thumbnailOf(index + 1))}
                     alt={`Post media ${index + 2}`}
                     className="w-full h-[7.75rem] object-cover"
                   />
@@ -67,7 +70,7 @@ const PostContent = ({ content, mediaUrls }) => {
               {mediaUrls.slice(3).map((url, index) => (
                 <div key={index} className="flex-shrink-0 w-48 rounded-lg overflow-hidden shadow-sm">
                   <img
-                    src={encodeURI(url)}
+                    src={encodeURI(thumbnailOf(index + 3))}
                     alt={`Post media ${index + 4}`}
                     className="w-full h-32 object-cover"
                   />
@@ -3,6 +3,7 @@ import { NavLink } from 'react-router-dom';
 import { useAuth } from '../contexts/AuthContext';
 import { Home, BookOpen, Award, Bell, User, LogOut } from 'lucide-react';
 import axios from 'axios';
+import api from '../utils/api';
 
 const Sidebar = () => {
   const { user, logout } = useAuth();
@@ -10,15 +11,19 @@ const Sidebar = () => {
 
   useEffect(() => {
     fetchUnreadCount();
-    const interval = setInterval(fetchUnreadCount, 60000); // Fetch every minute
-    return () => clearInterval(interval);
+    // Pushed by the server instead of polling every minute
+    const stream = new EventSource(`${api.defaults.baseURL}/api/notifications/stream`, { withCredentials: true });
+    // A like on a post with unread likes updates that notification rather than adding one, so ask for the count
+    stream.addEventListener('notification', fetchUnreadCount);
+    // Also on every reconnect, for whatever arrived while the stream was down
+    stream.onopen = fetchUnreadCount;
+    return () => stream.close();
   }, []);
 
   const fetchUnreadCount = async () => {
     try {
-      const response = await axios.get('/api/notifications');
-      const unread = response.data.filter(notif => !notif.read).length;
-      setUnreadCount(unread);
+      const response = await axios.get('/api/notifications/unread-count');
+      setUnreadCount(response.data.count);
     } catch (error) {
       console.error('Error fetching unread notifications:', error);
     }
@@ -8,6 +8,8 @@ import toast, { Toaster } from 'react-hot-toast';
 const Notifications = () => {
   const [notifications, setNotifications] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const { user } = useAuth();
 
   useEffect(() => {
@@ -17,12 +19,14 @@ const Notifications = () => {
   const fetchNotifications = async () => {
     try {
       setLoading(true);
-      const response = await api.get('/api/notifications');
-      if (!Array.isArray(response.data)) {
+      const response = await api.get('/api/notifications/page');
+      if (!Array.isArray(response.data?.items)) {
         console.error('Invalid response format:', response.data);
         setNotifications([]);
+        setNextCursor(null);
       } else {
-        setNotifications(response.data);
+        setNotifications(response.data.items);
+        setNextCursor(response.data.nextCursor);
       }
     } catch (error) {
       console.error('Error fetching notifications:', error);
@@ -32,6 +36,20 @@ const Notifications = () => {
     }
   };
 
+  const loadMore = async () => {
+    try {
+      setLoadingMore(true);
+      const response = await api.get('/api/notifications/page', { params: { cursor: nextCursor } });
+      setNotifications((current) => [...current, ...response.data.items]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error('Error fetching notifications:', error);
+      toast.error('Failed to load notifications');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const markAsRead = async (id) => {
     try {
       await api.put(`/api/notifications/${id}/read`);
@@ -209,6 +227,17 @@ const Notifications = () => {
             ))}
           </ul>
         )}
+        {!loading && nextCursor && (
+          <div className="p-4 text-center border-t border-gray-200">
+            <button
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="text-sm text-indigo-600 hover:text-indigo-800 disabled:text-gray-400 transition-colors"
+            >
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
@@ -15,6 +15,9 @@ const PostPage = () => {
   const [isLiked, setIsLiked] = useState(false);
   const [likeCount, setLikeCount] = useState(0);
   const [comments, setComments] = useState([]);
+  const [commentCount, setCommentCount] = useState(0);
+  const [olderCommentsCursor, setOlderCommentsCursor] = useState(null);
+  const [loadingOlderComments, setLoadingOlderComments] = useState(false);
   const [newComment, setNewComment] = useState('');
   const [commentLoading, setCommentLoading] = useState(false);
   const [showShareModal, setShowShareModal] = useState(false);
@@ -29,7 +32,11 @@ const PostPage = () => {
         setPost(response.data);
         setIsLiked(response.data.liked);
         setLikeCount(response.data.likes);
-        setComments(response.data.comments || []);
+        setCommentCount(response.data.commentCount);
+        const commentsResponse = await api.get(`/api/posts/${id}/comments`);
+        // The API pages newest first; the list reads oldest first
+        setComments([...commentsResponse.data.items].reverse());
+        setOlderCommentsCursor(commentsResponse.data.nextCursor);
         setLoading(false);
       } catch (err) {
         console.error('Error fetching post:', err);
@@ -40,6 +47,20 @@ const PostPage = () => {
     fetchPost();
   }, [id]);
 
+  const loadOlderComments = async () => {
+    try {
+      setLoadingOlderComments(true);
+      const response = await api.get(`/api/posts/${id}/comments`, { params: { cursor: olderCommentsCursor } });
+      setComments((current) => [...[...response.data.items].reverse(), ...current]);
+      setOlderCommentsCursor(response.data.nextCursor);
+    } catch (err) {
+      console.error('Error fetching comments:', err);
+      alert('Failed to load older comments');
+    } finally {
+      setLoadingOlderComments(false);
+    }
+  };
+
   const handleLike = async () => {
     if (!user) {
       alert('Please log in to like this post');
@@ -90,6 +111,7 @@ const PostPage = () => {
       
       // Add the new comment to the list
       setComments([...comments, response.data]);
+      setCommentCount((count) => count + 1);
       setNewComment('');
     } catch (err) {
       console.error('Error adding comment:', err);
@@ -109,6 +131,7 @@ const PostPage = () => {
     try {
       await api.delete(`/api/posts/${id}/comments/${commentId}`);
       setComments(comments.filter(comment => comment.id !== commentId));
+      setCommentCount((count) => Math.max(0, count - 1));
     } catch (err) {
       console.error('Error deleting comment:', err);
       alert('Failed to delete comment');
@@ -234,7 +257,7 @@ const PostPage = () => {
                   className="flex items-center gap-2 text-sm font-medium text-gray-500 hover:text-blue-500"
                 >
                   <MessageCircle size={20} />
-                  <span>{comments.length} Comments</span>
+                  <span>{commentCount} Comments</span>
                 </button>
               </div>
               
@@ -280,6 +303,16 @@ const PostPage = () => {
                 </form>
               )}
               
+              {olderCommentsCursor && (
+                <button
+                  onClick={loadOlderComments}
+                  disabled={loadingOlderComments}
+                  className="mb-4 text-sm text-blue-600 hover:text-blue-700 disabled:text-gray-400"
+                >
+                  {loadingOlderComments ? 'Loading...' : 'Load older comments'}
+                </button>
+              )}
+
               {/* Comments List */}
               {comments.length > 0 ? (
                 <div className="space-y-4">
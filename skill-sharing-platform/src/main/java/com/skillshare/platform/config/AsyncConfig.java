@@ -0,0 +1,73 @@
+package com.skillshare.platform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${media.upload.threads:8}")
+    private int uploadThreads;
+
+    @Value("${media.upload.queue-capacity:64}")
+    private int uploadQueueCapacity;
+
+    @Value("${media.variants.threads:2}")
+    private int variantThreads;
+
+    @Value("${media.variants.queue-capacity:256}")
+    private int variantQueueCapacity;
+
+    @Value("${notifications.stream.push-threads:4}")
+    private int pushThreads;
+
+    @Value("${notifications.stream.push-queue-capacity:10000}")
+    private int pushQueueCapacity;
+
+    // Boot backs off its own executor once any Executor bean exists; MVC async responses still need it
+    @Bean
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Writes post media to storage; when the queue is full the request thread does its own upload
+    @Bean
+    public ThreadPoolTaskExecutor mediaUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadThreads);
+        executor.setMaxPoolSize(uploadThreads);
+        executor.setQueueCapacity(uploadQueueCapacity);
+        executor.setThreadNamePrefix("media-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // Resizes images in the background; a full queue rejects the job and the original keeps being served
+    @Bean
+    public ThreadPoolTaskExecutor mediaVariantExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(variantThreads);
+        executor.setMaxPoolSize(variantThreads);
+        executor.setQueueCapacity(variantQueueCapacity);
+        executor.setThreadNamePrefix("media-variant-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        return executor;
+    }
+
+    // Writes server-sent events to subscribers; a full queue drops the subscriber, which then reconnects
+    @Bean
+    public ThreadPoolTaskExecutor notificationPushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pushThreads);
+        executor.setMaxPoolSize(pushThreads);
+        executor.setQueueCapacity(pushQueueCapacity);
+        executor.setThreadNamePrefix("notification-push-");
+        return executor;
+    }
+}
@@ -1,14 +1,20 @@
 package com.skillshare.platform.config;
 
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+
+import java.net.URI;
 
 @Configuration
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "s3")
 public class AwsConfig {
 
     @Value("${aws.accessKeyId}")
@@ -20,13 +26,34 @@ public class AwsConfig {
     @Value("${aws.region}")
     private String region;
 
+    // Empty for AWS itself; e.g. http://localhost:9000 for MinIO
+    @Value("${file.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${file.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    @Value("${file.s3.multipart-threshold-bytes:8388608}")
+    private long multipartThresholdBytes;
+
+    @Value("${file.s3.part-size-bytes:8388608}")
+    private long partSizeBytes;
+
+    // Non-blocking client; uploads above the threshold are split into parts sent in parallel
     @Bean
-    public AmazonS3 amazonS3() {
-        BasicAWSCredentials credentials = new BasicAWSCredentials(accessKeyId, secretAccessKey);
-        return AmazonS3ClientBuilder
-                .standard()
-                .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                .withRegion(region)
-                .build();
+    public S3AsyncClient s3AsyncClient() {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
+                .region(Region.of(region))
+                .forcePathStyle(pathStyleAccess)
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(multipartThresholdBytes)
+                        .minimumPartSizeInBytes(partSizeBytes)
+                        .build());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import com.skillshare.platform.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -37,9 +38,11 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // Dumps every post, so it must be matched before the wider /api/posts/** rule
+                .requestMatchers(HttpMethod.GET, "/api/posts/export").hasRole("ADMIN")
                 .requestMatchers(
                     "/api/users/current", "/api/users/**", "/api/posts/**", "/api/comments/**",
-                    "/api/learning-plans/**", "/api/progress-updates/**", "/api/notifications/**"
+                    "/api/learning-plans/**", "/api/progress-updates/**", "/api/notifications/**", "/api/uploads/**"
                 ).authenticated()
                 .requestMatchers(
                     "/api/auth/register", "/api/auth/login", "/logout", "/login",
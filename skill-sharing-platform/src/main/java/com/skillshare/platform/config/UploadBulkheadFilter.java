@@ -0,0 +1,132 @@
+package com.skillshare.platform.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps slow uploads from taking every Tomcat worker. Requests to the endpoints that receive files get
+ * their own budget of concurrent requests plus a short bounded queue; beyond that they are turned away
+ * at once with 503 and Retry-After, before their bodies are read, and the rest of the pool stays free
+ * for feed and other JSON reads.
+ *
+ * Publishes uploads.bulkhead.active and .queued gauges and .admitted and .rejected counters.
+ */
+@Component
+public class UploadBulkheadFilter extends OncePerRequestFilter {
+
+    // Method and path of every endpoint that reads an upload body
+    private static final List<String[]> UPLOAD_ENDPOINTS = List.of(
+        new String[]{"POST", "/api/posts/posts"},
+        new String[]{"PUT", "/api/posts/update/*"},
+        new String[]{"PATCH", "/api/users/*"},
+        new String[]{"POST", "/api/auth/register"},
+        new String[]{"PUT", "/api/uploads/*"},
+        new String[]{"POST", "/api/uploads/*/complete"}
+    );
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitMs;
+    private final int retryAfterSeconds;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Counter admitted;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Timer waitTimer;
+
+    public UploadBulkheadFilter(
+            MeterRegistry meterRegistry,
+            @Value("${uploads.bulkhead.max-concurrent:16}") int maxConcurrent,
+            @Value("${uploads.bulkhead.max-queued:16}") int maxQueued,
+            @Value("${uploads.bulkhead.max-wait-ms:2000}") long maxWaitMs,
+            @Value("${uploads.bulkhead.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.permits = new Semaphore(maxConcurrent, true);
+
+        Gauge.builder("uploads.bulkhead.active", this, filter -> filter.maxConcurrent - filter.permits.availablePermits())
+                .description("Upload requests being processed")
+                .register(meterRegistry);
+        Gauge.builder("uploads.bulkhead.queued", queued, AtomicInteger::get)
+                .description("Upload requests waiting for a slot")
+                .register(meterRegistry);
+        this.admitted = Counter.builder("uploads.bulkhead.admitted").register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("uploads.bulkhead.rejected").tag("reason", "queue-full").register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("uploads.bulkhead.rejected").tag("reason", "timeout").register(meterRegistry);
+        this.waitTimer = Timer.builder("uploads.bulkhead.wait").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String[] endpoint : UPLOAD_ENDPOINTS) {
+            if (endpoint[0].equals(request.getMethod()) && pathMatcher.match(endpoint[1], path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!permits.tryAcquire()) {
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                rejectedQueueFull.increment();
+                reject(response);
+                return;
+            }
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                queued.decrementAndGet();
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!acquired) {
+                rejectedTimeout.increment();
+                reject(response);
+                return;
+            }
+        }
+
+        admitted.increment();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many uploads in progress");
+    }
+}
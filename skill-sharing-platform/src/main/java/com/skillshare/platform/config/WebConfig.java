@@ -1,26 +0,0 @@
-package com.skillshare.platform.config;
-
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
-@Configuration
-public class WebConfig implements WebMvcConfigurer {
-
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-        registry.addResourceHandler("/media/**")
-                .addResourceLocations("file:" + uploadPath.toString() + "/");
-        // Ensure profile photos are accessible
-        registry.addResourceHandler("/profile-photos/**")
-                .addResourceLocations("file:" + uploadPath.toString() + "/");
-    }
-}
\ No newline at end of file
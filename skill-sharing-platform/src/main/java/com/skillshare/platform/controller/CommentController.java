@@ -1,6 +1,7 @@
 package com.skillshare.platform.controller;
 
 import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.CursorPageDTO;
 import com.skillshare.platform.model.Comment;
 import com.skillshare.platform.service.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +11,6 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/posts/{postId}/comments")
 public class CommentController {
@@ -30,8 +29,16 @@ public class CommentController {
     }
 
     @GetMapping
-    public List<CommentDTO> getComments(@PathVariable Long postId) {
-        return commentService.findByPostId(postId);
+    public ResponseEntity<?> getComments(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            CursorPageDTO<CommentDTO> page = commentService.findPageByPostId(postId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping
@@ -1,14 +1,25 @@
 package com.skillshare.platform.controller;
 
+import com.skillshare.platform.dto.CursorPageDTO;
 import com.skillshare.platform.dto.NotificationDTO;
 import com.skillshare.platform.service.NotificationService;
+import com.skillshare.platform.service.NotificationStreams;
+import com.skillshare.platform.service.VersionStamps;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -16,6 +27,12 @@ public class NotificationController {
 
     @Autowired
     private NotificationService notificationService;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private NotificationStreams notificationStreams;
     
     private String extractEmail(Authentication authentication) {
         Object principal = authentication.getPrincipal();
@@ -28,9 +45,54 @@ public class NotificationController {
     }
 
     @GetMapping
-    public List<NotificationDTO> getNotifications(Authentication authentication) {
+    public ResponseEntity<List<NotificationDTO>> getNotifications(
+            Authentication authentication,
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest webRequest) {
+        String email = extractEmail(authentication);
+        String etag = versionStamps.notificationsTag(email);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate())
+                .body(notificationService.findByUserEmail(email, limit));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getNotificationPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
         String email = extractEmail(authentication);
-        return notificationService.findByUserEmail(email);
+        try {
+            CursorPageDTO<NotificationDTO> page = notificationService.findPageByUserEmail(email, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // The badge, without loading the list
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication) {
+        String email = extractEmail(authentication);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate())
+                .body(Map.of("count", notificationService.unreadCount(email)));
+    }
+
+    // New notifications pushed as server-sent events while the stream is open, instead of polling the list
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(Authentication authentication) {
+        String email = extractEmail(authentication);
+        SseEmitter emitter = notificationStreams.subscribe(email);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // Tells nginx not to buffer the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
     }
 
     @PutMapping("/{id}/read")
@@ -1,20 +1,31 @@
 package com.skillshare.platform.controller;
 
+import com.skillshare.platform.dto.CursorPageDTO;
+import com.skillshare.platform.dto.PostCreatedDTO;
 import com.skillshare.platform.dto.PostDTO;
 import com.skillshare.platform.dto.SharedPostDTO;
 import com.skillshare.platform.model.Post;
 import com.skillshare.platform.model.SharedPost;
+import com.skillshare.platform.service.PostExportService;
 import com.skillshare.platform.service.PostService;
+import com.skillshare.platform.service.VersionStamps;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.http.MediaType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -23,9 +34,20 @@ import java.util.Map;
 @RequestMapping("/api/posts")
 public class PostController {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostController.class);
+
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private PostExportService postExportService;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Value("${export.retry-after-seconds:60}")
+    private int exportRetryAfterSeconds;
+
     private String extractEmail(Authentication authentication) {
         Object principal = authentication.getPrincipal();
         if (principal instanceof User userDetails) {
@@ -38,49 +60,131 @@ public class PostController {
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllPosts(Authentication authentication) {
+    public ResponseEntity<?> getAllPosts(Authentication authentication, WebRequest webRequest) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
         String email = extractEmail(authentication);
+        // Taken before loading, so a concurrent write can only make the tag older than the body
+        String etag = versionStamps.postListTag(email);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
         List<PostDTO> posts = postService.findAllPosts(email);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(posts);
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String email = extractEmail(authentication);
+        try {
+            CursorPageDTO<PostDTO> page = postService.findFeed(email, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrending(
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String email = extractEmail(authentication);
+        List<PostDTO> posts = postService.findTrending(email, limit);
         return ResponseEntity.ok(posts);
     }
 
+    @GetMapping("/timeline")
+    public ResponseEntity<?> getTimeline(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String email = extractEmail(authentication);
+        try {
+            CursorPageDTO<PostDTO> page = postService.findTimeline(email, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Full post history as newline-delimited JSON, written while it is read from the database.
+    // Admins only (see SecurityConfig); once every export slot is taken the rest are turned away
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportPosts(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!postExportService.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(exportRetryAfterSeconds))
+                    .build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                postExportService.exportPosts(outputStream);
+            } finally {
+                postExportService.release();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @PostMapping(value = "/posts", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Post> createPost(
+    public ResponseEntity<PostCreatedDTO> createPost(
             Authentication authentication,
             @RequestParam String content,
-            @RequestParam(required = false) MultipartFile[] mediaFiles) {
+            @RequestParam(required = false) MultipartFile[] mediaFiles,
+            @RequestParam(required = false) List<Long> uploadIds) {
 
         String email = extractEmail(authentication);
 
-        if (mediaFiles != null && mediaFiles.length > 0) {
-            System.out.println("Received " + mediaFiles.length + " media files");
+        if (mediaFiles != null && logger.isDebugEnabled()) {
             for (MultipartFile file : mediaFiles) {
-                System.out.println("File: " + file.getOriginalFilename() + 
-                                  " (" + file.getContentType() + ", " + 
-                                  file.getSize() + " bytes)");
+                logger.debug("Post media {} ({}, {} bytes)", file.getOriginalFilename(), file.getContentType(), file.getSize());
             }
         }
 
-        Post post = postService.createPost(email, content, mediaFiles);
-        return ResponseEntity.ok(post);
+        PostCreatedDTO created = postService.createPost(email, content, mediaFiles, uploadIds);
+        return ResponseEntity.ok(created);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getPostById(
             @PathVariable Long id,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest webRequest) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
         String email = extractEmail(authentication);
+        String etag = versionStamps.postTag(id, email);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
         try {
             PostDTO post = postService.findPostById(id, email);
-            return ResponseEntity.ok(post);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(post);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
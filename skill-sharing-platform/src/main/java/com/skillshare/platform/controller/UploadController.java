@@ -0,0 +1,92 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.dto.UploadSessionDTO;
+import com.skillshare.platform.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Resumable uploads: POST to start, PUT /{id}?offset=n with the raw bytes of each chunk, GET /{id} to
+ * find where to resume, and POST /{id}/complete. The mediaId it returns goes to createPost as uploadIds.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    private String extractEmail(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User userDetails) {
+            return userDetails.getUsername(); // form login
+        } else if (principal instanceof OAuth2User oauth2User) {
+            return oauth2User.getAttribute("email"); // OAuth2 login
+        }
+        throw new RuntimeException("Unsupported principal type");
+    }
+
+    @PostMapping
+    public ResponseEntity<?> startUpload(
+            Authentication authentication,
+            @RequestParam String filename,
+            @RequestParam String contentType,
+            @RequestParam long size) {
+        String email = extractEmail(authentication);
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(chunkedUploadService.start(email, filename, contentType, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getUpload(@PathVariable String id, Authentication authentication) {
+        String email = extractEmail(authentication);
+        try {
+            return ResponseEntity.ok(chunkedUploadService.getSession(email, id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    // The body is the chunk itself, read as it arrives rather than parsed as a form
+    @PutMapping("/{id}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String id,
+            @RequestParam long offset,
+            Authentication authentication,
+            HttpServletRequest request) throws IOException {
+        String email = extractEmail(authentication);
+        try {
+            UploadSessionDTO session = chunkedUploadService.writeChunk(email, id, offset, request.getInputStream());
+            return ResponseEntity.ok(session);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String id, Authentication authentication) throws IOException {
+        String email = extractEmail(authentication);
+        try {
+            return ResponseEntity.ok(chunkedUploadService.complete(email, id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+}
@@ -4,12 +4,16 @@ import com.skillshare.platform.dto.PostDTO;
 import com.skillshare.platform.dto.UserDTO;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.service.UserService;
+import com.skillshare.platform.service.VersionStamps;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +26,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private VersionStamps versionStamps;
+
     private String extractEmail(Authentication authentication) {
         Object principal = authentication.getPrincipal();
         if (principal instanceof UserDetails userDetails) {
@@ -71,7 +78,11 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getUser(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getUser(@PathVariable Long id, WebRequest webRequest) {
+        String etag = versionStamps.userTag(id);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
         UserDTO user = userService.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -84,7 +95,7 @@ public class UserController {
         response.put("followersCount", user.getFollowers() != null ? user.getFollowers().size() : 0);
         response.put("followingCount", user.getFollowing() != null ? user.getFollowing().size() : 0);
     
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(response);
         
     }
 
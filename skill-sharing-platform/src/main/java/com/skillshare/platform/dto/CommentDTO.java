@@ -2,8 +2,6 @@ package com.skillshare.platform.dto;
 
 import java.time.LocalDateTime;
 
-import com.skillshare.platform.model.User;
-
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,7 +13,7 @@ public class CommentDTO {
     private Long id;
     private String content;
     private LocalDateTime createdAt;
-    private User user;
+    private UserDTO user;
 
     // Constructors, getters, and setters
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.skillshare.platform.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,4 +15,8 @@ public class NotificationDTO {
     private String userEmail;
     private LocalDateTime createdAt;
     private boolean isRead;
+    private String type;
+    private Long targetId;
+    private int actorCount;
+    private List<String> latestActors; // names, newest first
 }
\ No newline at end of file
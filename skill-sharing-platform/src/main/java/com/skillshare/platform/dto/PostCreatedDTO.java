@@ -0,0 +1,20 @@
+package com.skillshare.platform.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.skillshare.platform.model.Post;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The created post as before, plus any media files that could not be stored
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostCreatedDTO {
+    @JsonUnwrapped
+    private Post post;
+    private List<FailedUploadDTO> failedUploads;
+}
@@ -21,6 +21,8 @@ public class PostDTO {
     @JsonIgnore
     private User user;
     
-    private List<CommentDTO> comments;
+    private List<CommentDTO> comments; // newest few only, see commentCount for the total
+    private long commentCount;
     private List<String> mediaUrls;
+    private List<String> thumbnailUrls; // same order as mediaUrls, for grid and card tiles
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.skillshare.platform.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One line of the /api/posts/export NDJSON stream
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostExportDTO {
+    private Long id;
+    private String content;
+    private int likes;
+    private LocalDateTime createdAt;
+    private Long userId;
+    private String userName;
+}
@@ -0,0 +1,18 @@
+package com.skillshare.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Where a resumable upload stands; clients resume by sending the next chunk at receivedBytes
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadSessionDTO {
+    private String id;
+    private String filename;
+    private long totalSize;
+    private long receivedBytes;
+    private Long mediaId; // set once completed; pass it to createPost as uploadIds
+    private String url;
+}
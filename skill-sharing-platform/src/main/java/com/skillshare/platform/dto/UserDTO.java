@@ -28,4 +28,11 @@ public class UserDTO {
         this.name = name;
         this.email = email;
     }
+
+    // Just enough to render an author next to a post or comment
+    public static UserDTO summaryOf(User user) {
+        UserDTO dto = new UserDTO(user.getId(), user.getName(), user.getEmail());
+        dto.setProfilePhotoUrl(user.getProfilePhotoUrl());
+        return dto;
+    }
 }
\ No newline at end of file
@@ -7,10 +7,15 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
 
-@ToString(exclude = {"post"})
+@ToString(exclude = {"post", "uploader"})
 @Data
 @Entity
-@Table(name = "media")
+@Table(name = "media", indexes = {
+    // Looked up by URL when variants are recorded and when the store is swept
+    @Index(name = "idx_media_url", columnList = "url"),
+    @Index(name = "idx_media_thumbnail_url", columnList = "thumbnail_url"),
+    @Index(name = "idx_media_feed_url", columnList = "feed_url")
+})
 public class Media {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,8 +24,18 @@ public class Media {
     private String url;
     private String type; // "image" or "video"
 
-    @ManyToOne
+    // Downscaled copies written by MediaVariantService; null until generated, or for videos
+    private String thumbnailUrl;
+    private String feedUrl;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id")
     @JsonIgnore
     private Post post;
+
+    // Who uploaded it through /api/uploads; the row has no post until they attach it to one
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "uploader_id")
+    @JsonIgnore
+    private User uploader;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.skillshare.platform.model;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Reference count for one stored file, shared by every Media row and profile photo pointing at it
+@Data
+@Entity
+@Table(name = "media_blobs")
+public class MediaBlob {
+    @Id
+    @Column(length = 191)
+    private String filename;
+
+    private long size;
+
+    // Written with relative updates by FileStorageService
+    private long refCount;
+
+    private LocalDateTime updatedAt;
+}
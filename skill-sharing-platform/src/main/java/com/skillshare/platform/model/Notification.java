@@ -10,17 +10,44 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @ToString(exclude = {"user"})
 @Data
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    // Finds the unread row a like, comment or share on the same post merges into
+    @Index(name = "idx_notifications_coalesce", columnList = "user_id, type, target_id, is_read"),
+    // Counts a user's unread rows the first time their badge is asked for, and serves mark-all-as-read
+    @Index(name = "idx_notifications_unread", columnList = "user_id, is_read"),
+    @Index(name = "idx_notifications_user_created_at_id", columnList = "user_id, created_at, id"),
+    // Oldest read rows first, for NotificationRetention
+    @Index(name = "idx_notifications_read_created_at", columnList = "is_read, created_at")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String message;
+
+    // Time of the latest activity; a merged row moves up with each new actor
     private LocalDateTime createdAt;
     private boolean isRead;
 
-    @ManyToOne
+    public enum Type {
+        LIKE, COMMENT, SHARE
+    }
+
+    // Null for one-off notifications, which are never merged
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    // The post the activity happened on
+    private Long targetId;
+
+    private int actorCount;
+
+    // JSON list of the most recent actors, newest first, as {"id":..,"name":..}
+    @Column(length = 1024)
+    private String latestActors;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonIgnore
     private User user;
@@ -0,0 +1,16 @@
+package com.skillshare.platform.model;
+
+import lombok.Data;
+import jakarta.persistence.*;
+
+// Unread notifications of one user; a missing row means not counted yet
+@Data
+@Entity
+@Table(name = "notification_counters")
+public class NotificationCounter {
+    @Id
+    private Long userId;
+
+    // Written with relative updates in the same transaction as the notifications they count
+    private long unread;
+}
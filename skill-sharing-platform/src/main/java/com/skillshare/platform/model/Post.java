@@ -14,7 +14,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @ToString(exclude = {"user", "mediaFiles", "comments"})
 @Data
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+    @Index(name = "idx_posts_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_posts_user_created_at_id", columnList = "user_id, created_at, id")
+})
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,10 +25,17 @@ public class Post {
 
     private String content;
 
+    // Maintained by LikeCounterService with relative updates; entity saves must not overwrite it
+    @Column(updatable = false)
     private int likes;
 
     @JsonIgnore
     @ManyToMany
+    @JoinTable(
+        name = "posts_liked_users",
+        joinColumns = @JoinColumn(name = "post_id"),
+        inverseJoinColumns = @JoinColumn(name = "liked_users_id")
+    )
     private Set<User> likedUsers = new HashSet<>();
 
     private LocalDateTime createdAt;
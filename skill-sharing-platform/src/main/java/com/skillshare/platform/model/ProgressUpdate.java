@@ -43,7 +43,8 @@ public class ProgressUpdate {
     private SkillLevel skillLevel;
 
     @ElementCollection
-    @CollectionTable(name = "progress_update_attachments", joinColumns = @JoinColumn(name = "progress_update_id"))
+    @CollectionTable(name = "progress_update_attachments", joinColumns = @JoinColumn(name = "progress_update_id"),
+            indexes = @Index(name = "idx_progress_update_attachments_url", columnList = "attachment_url"))
     @Column(name = "attachment_url")
     private List<String> attachments = new ArrayList<>();
 
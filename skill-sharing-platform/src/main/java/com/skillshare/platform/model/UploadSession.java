@@ -0,0 +1,39 @@
+package com.skillshare.platform.model;
+
+import lombok.Data;
+import lombok.ToString;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// A resumable upload in progress; its bytes so far live in a staging file named after the id
+@ToString(exclude = {"user"})
+@Data
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "idx_upload_sessions_updated_at", columnList = "updated_at")
+})
+public class UploadSession {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+
+    private String filename;
+    private String contentType;
+    private long totalSize;
+
+    // Every byte before this offset has been written and synced
+    private long receivedBytes;
+
+    // Set once the upload is complete and stored
+    private Long mediaId;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -11,7 +11,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @ToString(exclude = {"posts", "learningPlans", "progressUpdates", "followers", "following", "sharedPosts"})
 @Data
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_profile_photo_url", columnList = "profile_photo_url")
+})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
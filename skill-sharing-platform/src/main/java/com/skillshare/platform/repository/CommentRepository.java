@@ -1,10 +1,42 @@
 package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByPostId(Long postId);
+
+    // Keyset pagination over idx_comments_post_created_at_id, newest first
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.post.id = :postId ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findPageByPostId(@Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.post.id = :postId " +
+           "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findPageByPostIdAfter(@Param("postId") Long postId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    // The newest previewSize comments of each post, oldest first within a post
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.id IN (" +
+           "SELECT r.id FROM (" +
+           "SELECT c2.id AS id, row_number() OVER (PARTITION BY c2.post.id ORDER BY c2.createdAt DESC, c2.id DESC) AS rn " +
+           "FROM Comment c2 WHERE c2.post.id IN :postIds) r " +
+           "WHERE r.rn <= :previewSize) " +
+           "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findPreviewsByPostIds(@Param("postIds") Collection<Long> postIds, @Param("previewSize") int previewSize);
+
+    @Query("SELECT c.post.id, COUNT(c) FROM Comment c WHERE c.post.id IN :postIds GROUP BY c.post.id")
+    List<Object[]> countByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // {postId, createdAt} of recent comments, replayed into TrendingService on startup
+    @Query("SELECT c.post.id, c.createdAt FROM Comment c WHERE c.createdAt >= :since")
+    List<Object[]> findActivitySince(@Param("since") LocalDateTime since);
 }
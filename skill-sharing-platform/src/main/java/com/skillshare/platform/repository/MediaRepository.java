@@ -2,6 +2,38 @@ package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.Media;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface MediaRepository extends JpaRepository<Media, Long> {
-}
\ No newline at end of file
+
+    interface MediaUrlView {
+        Long getPostId();
+        String getUrl();
+        String getThumbnailUrl();
+    }
+
+    // Clients get the feed-width variant and the thumbnail once they exist, the original until then
+    @Query("SELECT m.post.id AS postId, COALESCE(m.feedUrl, m.url) AS url, COALESCE(m.thumbnailUrl, m.url) AS thumbnailUrl " +
+           "FROM Media m WHERE m.post.id IN :postIds ORDER BY m.id")
+    List<MediaUrlView> findUrlsByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT DISTINCT m.post.id FROM Media m WHERE m.url = :url AND m.post IS NOT NULL")
+    List<Long> findPostIdsByUrl(@Param("url") String url);
+
+    // Attaches completed uploads to a new post; only the uploader's and only once
+    @Modifying
+    @Query(value = "UPDATE media SET post_id = :postId WHERE id IN (:ids) AND uploader_id = :uploaderId AND post_id IS NULL", nativeQuery = true)
+    int attachUploads(@Param("ids") Collection<Long> ids, @Param("uploaderId") Long uploaderId, @Param("postId") Long postId);
+
+    // Content-addressed files can back several Media rows; they all share the variants
+    @Modifying
+    @Transactional
+    @Query("UPDATE Media m SET m.thumbnailUrl = :thumbnailUrl, m.feedUrl = :feedUrl WHERE m.url = :url")
+    int setVariantUrls(@Param("url") String url, @Param("thumbnailUrl") String thumbnailUrl, @Param("feedUrl") String feedUrl);
+}
@@ -0,0 +1,27 @@
+package com.skillshare.platform.repository;
+
+import com.skillshare.platform.model.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Long> {
+
+    @Query(value = "SELECT c.unread FROM notification_counters c JOIN users u ON u.id = c.user_id WHERE u.email = :email", nativeQuery = true)
+    Optional<Long> findUnreadByEmail(@Param("email") String email);
+
+    // First count for a user; the count reads rows a concurrent insert is writing only after it commits
+    @Modifying
+    @Query(value = "INSERT INTO notification_counters (user_id, unread) " +
+            "SELECT u.id, (SELECT COUNT(*) FROM notifications n WHERE n.user_id = u.id AND n.is_read = false) " +
+            "FROM users u WHERE u.email = :email", nativeQuery = true)
+    int initialize(@Param("email") String email);
+
+    // A no-op for users not counted yet, who are counted from scratch on their first read
+    @Modifying
+    @Query(value = "UPDATE notification_counters SET unread = unread + :delta WHERE user_id = :userId", nativeQuery = true)
+    int add(@Param("userId") Long userId, @Param("delta") long delta);
+}
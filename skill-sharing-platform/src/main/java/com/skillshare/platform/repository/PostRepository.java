@@ -2,10 +2,80 @@ package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.Post;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
     List<Post> findAllByOrderByCreatedAtDesc();
-}
\ No newline at end of file
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findAllWithUser();
+
+    // Same order as findAllWithUser, index columns only; the posts come from PostCache
+    @Query("SELECT p.id FROM Post p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Long> findAllIds();
+
+    // Forward-only read of every post for the NDJSON export; must be consumed inside a transaction.
+    // A fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result set.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user ORDER BY p.id")
+    Stream<Post> streamAllWithUser();
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user WHERE p.user.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findWithUserByUserId(@Param("userId") Long userId);
+
+    // Keyset pagination over idx_posts_created_at_id, reading only the index columns.
+    // Each row is {createdAt, id}; the posts themselves come from PostCache.
+    @Query("SELECT p.createdAt, p.id FROM Post p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Object[]> findFeedKeys(Pageable pageable);
+
+    @Query("SELECT p.createdAt, p.id FROM Post p " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Object[]> findFeedKeysAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user WHERE p.id IN :ids")
+    List<Post> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // {id, createdAt, likes} of recent posts, replayed into TrendingService on startup
+    @Query("SELECT p.id, p.createdAt, p.likes FROM Post p WHERE p.createdAt >= :since")
+    List<Object[]> findLikeCountsCreatedSince(@Param("since") LocalDateTime since);
+
+    // (createdAt, id) keys of posts by the given authors, newest first, strictly before the given position
+    @Query("SELECT p.createdAt, p.id FROM Post p WHERE p.user.id IN :authorIds " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Object[]> findKeysByAuthorsBefore(@Param("authorIds") Collection<Long> authorIds,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+
+    @Query(value = "SELECT post_id FROM posts_liked_users WHERE liked_users_id = :userId", nativeQuery = true)
+    List<Long> findLikedPostIdsByUserId(@Param("userId") Long userId);
+
+    // Likes are toggled on the join table directly so the likedUsers collection is never loaded.
+    // Returns 0 when the like already exists instead of failing on the primary key.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO posts_liked_users (post_id, liked_users_id) VALUES (:postId, :userId)", nativeQuery = true)
+    int insertLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM posts_liked_users WHERE post_id = :postId AND liked_users_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("postId") Long postId, @Param("userId") Long userId);
+}
@@ -1,15 +1,40 @@
 package com.skillshare.platform.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.model.SharedPost;
 import com.skillshare.platform.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SharedPostRepository extends JpaRepository<SharedPost, Long> {
     List<SharedPost> findByUserOrderBySharedAtDesc(User user);
     List<SharedPost> findByUserIdOrderBySharedAtDesc(Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT s FROM SharedPost s JOIN FETCH s.user JOIN FETCH s.originalPost p LEFT JOIN FETCH p.user " +
+           "WHERE s.user.id = :userId ORDER BY s.sharedAt DESC")
+    List<SharedPost> findWithPostsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT s.sharedAt, s.originalPost.id FROM SharedPost s WHERE s.user.id IN :userIds ORDER BY s.sharedAt DESC, s.id DESC")
+    List<Object[]> findKeysBySharers(@Param("userIds") Collection<Long> userIds, Pageable pageable);
+
+    // As findKeysBySharers, strictly before the given (sharedAt, post id) position
+    @Query("SELECT s.sharedAt, s.originalPost.id FROM SharedPost s WHERE s.user.id IN :userIds " +
+           "AND (s.sharedAt < :sharedAt OR (s.sharedAt = :sharedAt AND s.originalPost.id < :postId)) " +
+           "ORDER BY s.sharedAt DESC, s.originalPost.id DESC")
+    List<Object[]> findKeysBySharersBefore(@Param("userIds") Collection<Long> userIds,
+                                           @Param("sharedAt") LocalDateTime sharedAt,
+                                           @Param("postId") Long postId,
+                                           Pageable pageable);
+
+    // {postId, sharedAt} of recent shares, replayed into TrendingService on startup
+    @Query("SELECT s.originalPost.id, s.sharedAt FROM SharedPost s WHERE s.sharedAt >= :since")
+    List<Object[]> findActivitySince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,33 @@
+package com.skillshare.platform.repository;
+
+import com.skillshare.platform.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Only moves forward from the offset the chunk was written at, so two writers cannot both claim it
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.receivedBytes = :received, s.updatedAt = :now WHERE s.id = :id AND s.receivedBytes = :expected")
+    int advance(@Param("id") String id, @Param("expected") long expected, @Param("received") long received, @Param("now") LocalDateTime now);
+
+    // Only the first of two concurrent completions gets to set the media
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.mediaId = :mediaId, s.updatedAt = :now WHERE s.id = :id AND s.mediaId IS NULL")
+    int claimCompletion(@Param("id") String id, @Param("mediaId") Long mediaId, @Param("now") LocalDateTime now);
+
+    // Read from the database rather than a session entity the persistence context may still hold
+    @Query("SELECT s.mediaId FROM UploadSession s WHERE s.id = :id")
+    Optional<Long> findMediaIdById(@Param("id") String id);
+
+    List<UploadSession> findTop100ByUpdatedAtBefore(LocalDateTime cutoff);
+}
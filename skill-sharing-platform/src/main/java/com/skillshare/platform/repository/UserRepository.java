@@ -1,9 +1,24 @@
 package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    // user_followers holds (user_id = followed user, follower_id = follower)
+    @Query(value = "SELECT follower_id FROM user_followers WHERE user_id = :userId", nativeQuery = true)
+    List<Long> findFollowerIds(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = "SELECT user_id FROM user_followers WHERE follower_id = :followerId", nativeQuery = true)
+    List<Long> findFollowedUserIds(@Param("followerId") Long followerId);
+
+    @Query(value = "SELECT user_id FROM user_followers GROUP BY user_id HAVING COUNT(*) >= :threshold", nativeQuery = true)
+    List<Long> findUserIdsWithAtLeastFollowers(@Param("threshold") long threshold);
+}
@@ -0,0 +1,32 @@
+package com.skillshare.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Accounts listed under admin.emails are granted ROLE_ADMIN at login, whichever way they sign in.
+ */
+@Component
+public class AdminAccounts {
+
+    public static final SimpleGrantedAuthority ROLE_ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+
+    private final Set<String> emails;
+
+    public AdminAccounts(@Value("${admin.emails:}") String emails) {
+        this.emails = Arrays.stream(emails.split(","))
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isAdmin(String email) {
+        return email != null && emails.contains(email.toLowerCase(Locale.ROOT));
+    }
+}
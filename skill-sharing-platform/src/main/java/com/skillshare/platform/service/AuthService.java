@@ -4,21 +4,19 @@ import com.skillshare.platform.dto.LoginRequest;
 import com.skillshare.platform.dto.RegistrationRequest;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.storage.StoredFile;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.List;
 
 @Service
 public class AuthService {
@@ -32,8 +30,11 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     public User registerUser(RegistrationRequest registrationRequest, MultipartFile profilePhoto) {
         // Check if user already exists
@@ -51,19 +52,32 @@ public class AuthService {
         user.setActive(true);
 
         // Handle profile photo upload
+        StoredFile photo = null;
         if (profilePhoto != null && !profilePhoto.isEmpty()) {
             try {
-                String fileName = UUID.randomUUID().toString() + "_" + profilePhoto.getOriginalFilename();
-                Path filePath = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(fileName);
-                Files.createDirectories(filePath.getParent());
-                Files.write(filePath, profilePhoto.getBytes());
-                user.setProfilePhotoUrl("/media/" + fileName);
-            } catch (IOException e) {
+                photo = fileStorageService.store(profilePhoto);
+                user.setProfilePhotoUrl("/media/" + photo.getFilename());
+            } catch (RuntimeException e) {
                 throw new RuntimeException("Failed to upload profile photo", e);
             }
         }
 
-        return userRepository.save(user);
+        // The reference is counted in the transaction that saves it; a failed save throws the file away
+        StoredFile storedPhoto = photo;
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                User savedUser = userRepository.save(user);
+                if (storedPhoto != null) {
+                    fileStorageService.retain(List.of(storedPhoto));
+                }
+                return savedUser;
+            });
+        } catch (RuntimeException e) {
+            if (storedPhoto != null) {
+                fileStorageService.discard(storedPhoto);
+            }
+            throw e;
+        }
     }
 
     public User authenticateUser(LoginRequest loginRequest) {
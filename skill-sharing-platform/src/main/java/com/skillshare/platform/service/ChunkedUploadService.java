@@ -0,0 +1,255 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.UploadSessionDTO;
+import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.UploadSession;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.UploadSessionRepository;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.storage.StoredFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable uploads for files too large to send in one request. A client opens a session with the
+ * total size, sends the bytes as chunks at increasing offsets and completes it; after a dropped
+ * connection it asks for the session and carries on from receivedBytes. Chunks are written with
+ * positional writes straight from the request body, so memory per request stays at one buffer and a
+ * request holds its thread only for one chunk.
+ *
+ * Completing a session stores the file like any other upload and creates a Media row without a post,
+ * which createPost then attaches. Sessions and unattached uploads are dropped after session-ttl.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MediaVariantService mediaVariantService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${uploads.max-file-bytes:2147483648}")
+    private long maxFileBytes;
+
+    @Value("${uploads.max-chunk-bytes:8388608}")
+    private long maxChunkBytes;
+
+    @Value("${uploads.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    public UploadSessionDTO start(String email, String filename, String contentType, long totalSize) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        if (totalSize <= 0 || totalSize > maxFileBytes) {
+            throw new IllegalArgumentException("File size must be between 1 and " + maxFileBytes + " bytes");
+        }
+        if (contentType == null || !(contentType.startsWith("image/") || contentType.startsWith("video/"))) {
+            throw new IllegalArgumentException("Only images and videos can be uploaded");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUser(user);
+        session.setFilename(filename);
+        session.setContentType(contentType);
+        session.setTotalSize(totalSize);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setUpdatedAt(session.getCreatedAt());
+        return toDTO(uploadSessionRepository.save(session));
+    }
+
+    public UploadSessionDTO getSession(String email, String sessionId) {
+        return toDTO(findOwned(email, sessionId));
+    }
+
+    /**
+     * Writes one chunk at offset, which must be where the previous chunk ended. Anything else, including
+     * a chunk racing another for the same offset, is rejected with IllegalStateException so the client
+     * re-reads the session and resumes from the right place.
+     */
+    public UploadSessionDTO writeChunk(String email, String sessionId, long offset, InputStream body) throws IOException {
+        UploadSession session = findOwned(email, sessionId);
+        if (session.getMediaId() != null) {
+            throw new IllegalStateException("Upload is already complete");
+        }
+        if (offset != session.getReceivedBytes()) {
+            throw new IllegalStateException("Expected offset " + session.getReceivedBytes());
+        }
+
+        long limit = Math.min(maxChunkBytes, session.getTotalSize() - offset);
+        long position = offset;
+        Path part = fileStorageService.uploadSessionFile(sessionId);
+        try (ReadableByteChannel in = Channels.newChannel(body);
+             FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                if (position - offset + buffer.remaining() > limit) {
+                    throw new IllegalArgumentException("Chunk is larger than " + limit + " bytes");
+                }
+                while (buffer.hasRemaining()) {
+                    position += out.write(buffer, position);
+                }
+                buffer.clear();
+            }
+            // receivedBytes promises these bytes survive a crash
+            out.force(false);
+        }
+
+        if (position > offset && uploadSessionRepository.advance(sessionId, offset, position, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Another chunk was written at offset " + offset);
+        }
+        session.setReceivedBytes(position);
+        return toDTO(session);
+    }
+
+    public UploadSessionDTO complete(String email, String sessionId) throws IOException {
+        UploadSession session = findOwned(email, sessionId);
+        if (session.getMediaId() != null) {
+            return toDTO(session);
+        }
+        if (session.getReceivedBytes() != session.getTotalSize()) {
+            throw new IllegalStateException("Only " + session.getReceivedBytes() + " of " + session.getTotalSize() + " bytes received");
+        }
+
+        Path part = fileStorageService.uploadSessionFile(sessionId);
+        StoredFile stored;
+        try {
+            // Bytes past totalSize can only come from a rejected chunk; they are not part of the file
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                channel.truncate(session.getTotalSize());
+            }
+            stored = fileStorageService.storeStaged(part, session.getFilename(), session.getContentType());
+        } catch (IOException | RuntimeException e) {
+            // A concurrent complete may have taken the part file; if it finished, its result is ours too
+            Long mediaId = uploadSessionRepository.findMediaIdById(sessionId).orElse(null);
+            if (mediaId != null) {
+                return completed(session, mediaId);
+            }
+            if (!Files.exists(part)) {
+                throw new IllegalStateException("Upload is being completed by another request");
+            }
+            throw e;
+        }
+
+        Media media = new TransactionTemplate(transactionManager).execute(status -> {
+            Media created = new Media();
+            created.setUrl(fileStorageService.urlOf(stored.getFilename()));
+            created.setType(session.getContentType().startsWith("image") ? "image" : "video");
+            created.setUploader(session.getUser());
+            created = mediaRepository.save(created);
+            if (uploadSessionRepository.claimCompletion(sessionId, created.getId(), LocalDateTime.now()) == 0) {
+                status.setRollbackOnly();
+                return null;
+            }
+            fileStorageService.retain(List.of(stored));
+            mediaVariantService.scheduleVariants(List.of(stored));
+            return created;
+        });
+        if (media == null) {
+            // Lost the race to another complete of the same session, which counted its own copy
+            fileStorageService.discard(stored);
+            return completed(session, uploadSessionRepository.findMediaIdById(sessionId).orElseThrow());
+        }
+        session.setMediaId(media.getId());
+        logger.info("Chunked upload {} stored as {} ({} bytes)", sessionId, stored.getFilename(), stored.getSize());
+        return toDTO(session, media.getUrl());
+    }
+
+    // Drops abandoned sessions with their partial files, and completed uploads never attached to a post
+    @Scheduled(fixedDelayString = "${uploads.cleanup-interval-ms:3600000}", initialDelayString = "${uploads.cleanup-interval-ms:3600000}")
+    public void removeExpiredSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sessionTtl);
+        List<UploadSession> expired;
+        do {
+            expired = uploadSessionRepository.findTop100ByUpdatedAtBefore(cutoff);
+            for (UploadSession session : expired) {
+                try {
+                    removeSession(session);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not remove expired upload {}", session.getId(), e);
+                    return;
+                }
+            }
+        } while (!expired.isEmpty());
+    }
+
+    private void removeSession(UploadSession session) throws IOException {
+        Files.deleteIfExists(fileStorageService.uploadSessionFile(session.getId()));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (session.getMediaId() != null) {
+                mediaRepository.findById(session.getMediaId())
+                        .filter(media -> media.getPost() == null)
+                        .ifPresent(media -> {
+                            mediaRepository.delete(media);
+                            fileStorageService.release(List.of(FileStorageService.filenameOf(media.getUrl())));
+                        });
+            }
+            uploadSessionRepository.deleteById(session.getId());
+        });
+    }
+
+    private UploadSession findOwned(String email, String sessionId) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Upload not found: " + sessionId));
+        // Someone else's session looks the same as a missing one
+        if (!session.getUser().getId().equals(user.getId())) {
+            throw new RuntimeException("Upload not found: " + sessionId);
+        }
+        return session;
+    }
+
+    private UploadSessionDTO completed(UploadSession session, Long mediaId) {
+        session.setMediaId(mediaId);
+        return toDTO(session, mediaRepository.findById(mediaId).map(Media::getUrl).orElse(null));
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session) {
+        return toDTO(session, null);
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session, String url) {
+        return new UploadSessionDTO(session.getId(), session.getFilename(), session.getTotalSize(),
+                session.getReceivedBytes(), session.getMediaId(), url);
+    }
+}
@@ -1,13 +1,19 @@
 package com.skillshare.platform.service;
 
 import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.CursorPageDTO;
+import com.skillshare.platform.dto.UserDTO;
 import com.skillshare.platform.model.Comment;
+import com.skillshare.platform.model.Notification;
 import com.skillshare.platform.model.Post;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.CommentRepository;
 import com.skillshare.platform.repository.PostRepository;
 import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -17,6 +23,8 @@ import java.util.stream.Collectors;
 @Service
 public class CommentService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private CommentRepository commentRepository;
 
@@ -29,15 +37,42 @@ public class CommentService {
     @Autowired
     private NotificationService notificationService;
 
-    public List<CommentDTO> findByPostId(Long postId) {
-    return commentRepository.findByPostId(postId).stream()
-        .map(comment -> new CommentDTO(
-            comment.getId(),
-            comment.getContent(),
-            comment.getCreatedAt(),
-            comment.getUser()
-        ))
-        .collect(Collectors.toList());
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    public CursorPageDTO<CommentDTO> findPageByPostId(Long postId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Comment> comments;
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findPageByPostId(postId, pageable);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            comments = commentRepository.findPageByPostIdAfter(postId, position.getCreatedAt(), position.getId(), pageable);
+        }
+
+        String nextCursor = null;
+        if (comments.size() > pageSize) {
+            comments = comments.subList(0, pageSize);
+            Comment last = comments.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        List<CommentDTO> items = comments.stream()
+            .map(comment -> new CommentDTO(
+                comment.getId(),
+                comment.getContent(),
+                comment.getCreatedAt(),
+                UserDTO.summaryOf(comment.getUser())
+            ))
+            .collect(Collectors.toList());
+        return new CursorPageDTO<>(items, nextCursor);
     }
 
 
@@ -52,7 +87,10 @@ public class CommentService {
         comment.setPost(post);
         comment.setCreatedAt(LocalDateTime.now());
         Comment savedComment = commentRepository.save(comment);
-        notificationService.createNotification(post.getUser(), user.getName() + " commented on your post!");
+        postCache.evictPost(postId);
+        versionStamps.postChanged(postId);
+        trendingService.recordComment(postId);
+        notificationService.createNotification(post.getUser(), Notification.Type.COMMENT, postId, user);
         return savedComment;
     }
 
@@ -65,7 +103,10 @@ public class CommentService {
             throw new RuntimeException("Unauthorized");
         }
         comment.setContent(content);
-        return commentRepository.save(comment);
+        Comment savedComment = commentRepository.save(comment);
+        postCache.evictPost(comment.getPost().getId());
+        versionStamps.postChanged(comment.getPost().getId());
+        return savedComment;
     }
 
     public void deleteComment(Long commentId, String email) {
@@ -77,5 +118,7 @@ public class CommentService {
             throw new RuntimeException("Unauthorized");
         }
         commentRepository.delete(comment);
+        postCache.evictPost(comment.getPost().getId());
+        versionStamps.postChanged(comment.getPost().getId());
     }
 }
\ No newline at end of file
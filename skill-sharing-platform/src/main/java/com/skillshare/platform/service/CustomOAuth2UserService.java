@@ -3,12 +3,16 @@ package com.skillshare.platform.service;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -17,6 +21,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AdminAccounts adminAccounts;
+
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         OAuth2User oauth2User = super.loadUser(userRequest);
@@ -55,7 +62,15 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                 System.out.println("Existing user logged in via OAuth: " + email);
             }
         }
-        
+
+        if (adminAccounts.isAdmin(email)) {
+            List<GrantedAuthority> authorities = new ArrayList<>(oauth2User.getAuthorities());
+            authorities.add(AdminAccounts.ROLE_ADMIN);
+            String nameAttribute = userRequest.getClientRegistration().getProviderDetails()
+                    .getUserInfoEndpoint().getUserNameAttributeName();
+            return new DefaultOAuth2User(authorities, oauth2User.getAttributes(), nameAttribute);
+        }
+
         return oauth2User;
     }
 }
\ No newline at end of file
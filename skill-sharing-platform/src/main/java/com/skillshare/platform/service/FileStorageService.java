@@ -1,47 +1,330 @@
 package com.skillshare.platform.service;
 
+import com.skillshare.platform.storage.StorageBackend;
+import com.skillshare.platform.storage.StoredFile;
+import com.skillshare.platform.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class FileStorageService {
+
+    // Per upload, whatever the file size
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_EXTENSION_LENGTH = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StorageBackend storageBackend;
     
+    // Uploads are staged here while they are hashed, whichever backend keeps them afterwards
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
     
     @Value("${file.base-url:http://localhost:8081/media}")
     private String baseUrl;
+
+    // Store files under their SHA-256 so identical uploads share one file
+    @Value("${file.content-addressed:false}")
+    private boolean contentAddressed;
     
     public String uploadFile(MultipartFile file) {
+        // Return URL for accessing the file
+        return urlOf(store(file).getFilename());
+    }
+
+    public Optional<Path> localPath(String filename) {
+        return storageBackend.localPath(filename);
+    }
+
+    public String publicUrl(String filename) {
+        return storageBackend.publicUrl(filename);
+    }
+
+    public boolean exists(String filename) throws IOException {
+        return storageBackend.exists(filename);
+    }
+
+    public InputStream open(String filename) throws IOException {
+        return storageBackend.open(filename);
+    }
+
+    // A scratch file next to the uploads, to be filled and then handed to storeDerived
+    public Path stagingFile(String filename) throws IOException {
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Files.createDirectories(uploadPath);
+        return uploadPath.resolve("." + filename + "." + UUID.randomUUID() + ".part");
+    }
+
+    // Publishes a file the server produced itself, such as an image variant
+    public void storeDerived(String filename, Path stagedFile, String contentType) throws IOException {
+        storageBackend.put(filename, stagedFile, contentType);
+    }
+
+    public String urlOf(String filename) {
+        return baseUrl + "/" + filename;
+    }
+
+    // Works for both media URLs and the /media/<name> profile photo paths
+    public static String filenameOf(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Stores an upload and returns its name, size and SHA-256, streaming through a fixed-size buffer.
+     *
+     * In content-addressed mode the upload is hashed first and named after its digest; when the
+     * backend already has that file nothing is written at all. Otherwise it gets a fresh UUID name.
+     * Either way the bytes are staged to a temporary file and handed to the backend once complete,
+     * so a half-written file is never visible under its final name.
+     */
+    public StoredFile store(MultipartFile file) {
+        try {
+            if (!contentAddressed) {
+                String filename = UUID.randomUUID().toString() + sanitize(file.getOriginalFilename());
+                Digest digest = copy(file, stagingFile(filename));
+                storageBackend.put(filename, digest.staged, file.getContentType());
+                return new StoredFile(filename, digest.size, digest.sha256, file.getContentType());
+            }
+
+            // Multipart uploads are already spooled by the container, so reading twice is cheaper than writing twice
+            Digest digest = copy(file, null);
+            String filename = digest.sha256 + extensionOf(file.getOriginalFilename());
+            // Claim the name before relying on an existing copy, so the collector keeps it until retain runs
+            markInUse(filename, digest.size);
+            if (!storageBackend.exists(filename)) {
+                Digest staged = copy(file, stagingFile(filename));
+                storageBackend.put(filename, staged.staged, file.getContentType());
+            }
+            return new StoredFile(filename, digest.size, digest.sha256, file.getContentType());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stores a file already assembled on local disk, such as a finished chunked upload, under the same
+     * naming rules as store. The staged file is consumed either way.
+     */
+    public StoredFile storeStaged(Path staged, String originalFilename, String contentType) {
         try {
-            // Create upload directory if it doesn't exist
-            Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String filename = UUID.randomUUID().toString() + 
-                              (originalFilename != null ? "-" + originalFilename : "");
-            Path filePath = uploadPath.resolve(filename);
-            
-            // Save the file with overwrite option
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Return URL for accessing the file
-            return baseUrl + "/" + filename;
+            Digest digest = hash(staged);
+            String filename = contentAddressed
+                    ? digest.sha256 + extensionOf(originalFilename)
+                    : UUID.randomUUID().toString() + sanitize(originalFilename);
+            if (contentAddressed) {
+                markInUse(filename, digest.size);
+            }
+            if (contentAddressed && storageBackend.exists(filename)) {
+                Files.deleteIfExists(staged);
+            } else {
+                storageBackend.put(filename, staged, contentType);
+            }
+            return new StoredFile(filename, digest.size, digest.sha256, contentType);
         } catch (IOException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to store file locally: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to store file: " + e.getMessage(), e);
+        }
+    }
+
+    // Where a resumable upload collects its chunks; a dot name, so it is never listed or served
+    public Path uploadSessionFile(String sessionId) throws IOException {
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Files.createDirectories(uploadPath);
+        return uploadPath.resolve(".session-" + sessionId + ".part");
+    }
+
+    // Undoes a store whose references were never saved; shared content-addressed files are left for the collector
+    public void discard(StoredFile file) {
+        if (!contentAddressed) {
+            try {
+                storageBackend.delete(file.getFilename());
+            } catch (IOException ignored) {
+                // Left for the collector
+            }
+        }
+    }
+
+    private void markInUse(String filename, long size) {
+        jdbcTemplate.update(
+            "INSERT INTO media_blobs (filename, size, ref_count, updated_at) VALUES (?, ?, 0, NOW()) " +
+            "ON DUPLICATE KEY UPDATE updated_at = NOW()", filename, size);
+    }
+
+    /**
+     * Counts one more reference to each file. Must run in the transaction that saves the references.
+     */
+    public void retain(Collection<StoredFile> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = files.stream()
+                .map(file -> new Object[]{file.getFilename(), file.getSize()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO media_blobs (filename, size, ref_count, updated_at) VALUES (?, ?, 1, NOW()) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = NOW()", rows);
+    }
+
+    /**
+     * Drops one reference to each file. Files are not deleted here: a concurrent upload may have
+     * just found the same digest, so MediaGarbageCollector reclaims unreferenced files after a grace period.
+     */
+    public void release(Collection<String> filenames) {
+        if (filenames.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = filenames.stream()
+                .map(filename -> new Object[]{filename})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(
+            "UPDATE media_blobs SET ref_count = ref_count - 1, updated_at = NOW() WHERE filename = ? AND ref_count > 0", rows);
+    }
+
+    public List<StoredObject> list(String startAfter, int limit) throws IOException {
+        return storageBackend.list(startAfter, limit);
+    }
+
+    public void delete(String filename) throws IOException {
+        storageBackend.delete(filename);
+    }
+
+    /**
+     * Deletes staging files older than the cutoff, left behind when the process died mid-upload, and
+     * returns the bytes freed.
+     */
+    public long purgeStagingFiles(Instant cutoff) throws IOException {
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(uploadPath)) {
+            return 0;
+        }
+        long reclaimed = 0;
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(uploadPath, ".*.part")) {
+            for (Path part : parts) {
+                BasicFileAttributes attributes = Files.readAttributes(part, BasicFileAttributes.class);
+                if (attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(cutoff)
+                        && Files.deleteIfExists(part)) {
+                    reclaimed += attributes.size();
+                }
+            }
+        }
+        return reclaimed;
+    }
+
+    // Reads the upload once, hashing it; also writes it to the staging file when one is given
+    private Digest copy(MultipartFile file, Path staged) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (ReadableByteChannel in = Channels.newChannel(file.getInputStream());
+                 FileChannel out = staged != null ? FileChannel.open(staged, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE) : null) {
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer.array(), 0, buffer.limit());
+                    size += buffer.limit();
+                    while (out != null && buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            return new Digest(size, HexFormat.of().formatHex(digest.digest()), staged);
+        } catch (IOException e) {
+            if (staged != null) {
+                deleteQuietly(staged);
+            }
+            throw e;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Digest hash(Path path) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer.array(), 0, buffer.limit());
+                size += buffer.limit();
+                buffer.clear();
+            }
+            return new Digest(size, HexFormat.of().formatHex(digest.digest()), path);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Digest {
+        final long size;
+        final String sha256;
+        final Path staged;
+
+        Digest(long size, String sha256, Path staged) {
+            this.size = size;
+            this.sha256 = sha256;
+            this.staged = staged;
+        }
+    }
+
+    // Keeps the client's name readable in the URL but never lets it pick a path
+    private static String sanitize(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            return "";
+        }
+        String name = originalFilename.substring(Math.max(originalFilename.lastIndexOf('/'), originalFilename.lastIndexOf('\\')) + 1);
+        name = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(name.length() - MAX_NAME_LENGTH);
+        }
+        return name.isEmpty() ? "" : "-" + name;
+    }
+
+    // The extension is kept so the file is still served with the right content type
+    private static String extensionOf(String originalFilename) {
+        String name = sanitize(originalFilename);
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || name.length() - dot > MAX_EXTENSION_LENGTH + 1) {
+            return "";
+        }
+        return name.substring(dot).toLowerCase(Locale.ROOT);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Nothing more to do; the stray part file is harmless
         }
     }
-}
\ No newline at end of file
+}
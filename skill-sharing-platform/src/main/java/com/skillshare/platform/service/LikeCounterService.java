@@ -0,0 +1,162 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.util.SegmentedLog;
+import com.skillshare.platform.util.Transactions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind like counts. likePost records a delta in a per-post LongAdder and in an append-only
+ * log; a scheduled flusher writes the summed deltas to posts.likes in one JDBC batch.
+ * Reads add the pending delta to the persisted count.
+ *
+ * posts_liked_users is written synchronously and stays the source of truth, so recovery after a
+ * crash simply recounts the posts named in the leftover log segments.
+ */
+@Service
+public class LikeCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounterService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${likes.log-dir:data/likes-log}")
+    private String logDir;
+
+    @Value("${likes.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> flushing = new ConcurrentHashMap<>();
+
+    // Likes share the read lock; only the flusher takes the write lock, to cut the log and drain the adders together
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private SegmentedLog likeLog;
+
+    @PostConstruct
+    public void open() {
+        Path directory = Paths.get(logDir).toAbsolutePath().normalize();
+        likeLog = new SegmentedLog(directory, "likes");
+        recover(likeLog.sealedSegments());
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        likeLog.close();
+    }
+
+    public void increment(Long postId) {
+        record(postId, 1);
+    }
+
+    public void decrement(Long postId) {
+        record(postId, -1);
+    }
+
+    public long pendingDelta(Long postId) {
+        LongAdder adder = pending.get(postId);
+        long delta = adder != null ? adder.sum() : 0;
+        return delta + flushing.getOrDefault(postId, 0L);
+    }
+
+    public int currentLikes(Long postId, int persistedLikes) {
+        return (int) Math.max(0, persistedLikes + pendingDelta(postId));
+    }
+
+    @Scheduled(fixedDelayString = "${likes.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<Path> segments;
+        flushLock.writeLock().lock();
+        try {
+            segments = likeLog.rotate();
+            for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta != 0) {
+                    flushing.merge(entry.getKey(), delta, Long::sum);
+                }
+            }
+            pending.clear();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+
+        if (flushing.isEmpty()) {
+            likeLog.delete(segments);
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        flushing.forEach((postId, delta) -> batch.add(new Object[]{delta, postId}));
+        try {
+            jdbcTemplate.batchUpdate("UPDATE posts SET likes = likes + ? WHERE id = ?", batch, flushBatchSize,
+                    (ps, args) -> {
+                        ps.setLong(1, (Long) args[0]);
+                        ps.setLong(2, (Long) args[1]);
+                    });
+            flushing.clear();
+            likeLog.delete(segments);
+            logger.debug("Flushed like deltas for {} posts", batch.size());
+        } catch (RuntimeException e) {
+            // Deltas stay in flushing and the segments stay on disk; the next run retries both
+            logger.error("Failed to flush like counts: {}", e.getMessage());
+        }
+    }
+
+    private void record(Long postId, int delta) {
+        apply(postId, delta);
+        // The join table change is undone on rollback, so the counter must be too
+        Transactions.afterRollback(() -> apply(postId, -delta));
+    }
+
+    private void apply(Long postId, int delta) {
+        flushLock.readLock().lock();
+        try {
+            likeLog.append(postId + "," + delta);
+            pending.computeIfAbsent(postId, id -> new LongAdder()).add(delta);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    private void recover(List<Path> segments) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        Set<Long> postIds = new TreeSet<>();
+        for (String record : SegmentedLog.readRecords(segments)) {
+            try {
+                postIds.add(Long.parseLong(record.substring(0, record.indexOf(','))));
+            } catch (RuntimeException e) {
+                logger.warn("Skipping unreadable like log record: {}", record);
+            }
+        }
+        List<Object[]> batch = new ArrayList<>();
+        postIds.forEach(postId -> batch.add(new Object[]{postId}));
+        jdbcTemplate.batchUpdate(
+                "UPDATE posts SET likes = (SELECT COUNT(*) FROM posts_liked_users l WHERE l.post_id = posts.id) WHERE id = ?",
+                batch);
+        likeLog.delete(segments);
+        logger.info("Recounted likes for {} posts from unflushed log segments", postIds.size());
+    }
+}
@@ -0,0 +1,131 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.util.StripedStamps;
+import com.skillshare.platform.util.Transactions;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Liked post ids per active user, kept as a sorted long[] so a membership test is a binary search
+ * and a user with thousands of likes costs 8 bytes per like instead of a Set<User> per post.
+ * Snapshots are immutable; likePost swaps in a new one once the join table change has committed.
+ * Up to likes.index.max-users users are cached, evicted by Caffeine. A user's likes are loaded outside
+ * the cache and only kept if no like or unlike of theirs committed meanwhile.
+ */
+@Service
+public class LikedPostIndex {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private static final int STAMP_STRIPES = 1024;
+
+    @Value("${likes.index.max-users:50000}")
+    private int maxUsers;
+
+    private Cache<Long, long[]> likedByUser;
+
+    private final StripedStamps stamps = new StripedStamps(STAMP_STRIPES);
+
+    @PostConstruct
+    public void init() {
+        likedByUser = Caffeine.newBuilder().maximumSize(maxUsers).build();
+    }
+
+    public boolean isLiked(Long userId, Long postId) {
+        return Arrays.binarySearch(snapshot(userId), postId) >= 0;
+    }
+
+    public Set<Long> likedAmong(Long userId, Collection<Long> postIds) {
+        long[] liked = snapshot(userId);
+        Set<Long> result = new HashSet<>();
+        for (Long postId : postIds) {
+            if (Arrays.binarySearch(liked, postId) >= 0) {
+                result.add(postId);
+            }
+        }
+        return result;
+    }
+
+    // A load that runs before the commit must not be able to overwrite the change, so apply it afterwards
+    public void recordLike(Long userId, Long postId) {
+        Transactions.afterCommit(() -> addLike(userId, postId));
+    }
+
+    public void recordUnlike(Long userId, Long postId) {
+        Transactions.afterCommit(() -> removeLike(userId, postId));
+    }
+
+    private void addLike(Long userId, Long postId) {
+        stamps.bump(userId);
+        // Users that are not cached pick the row up from the database on their next lookup
+        likedByUser.asMap().computeIfPresent(userId, (id, liked) -> {
+            int index = Arrays.binarySearch(liked, postId);
+            if (index >= 0) {
+                return liked;
+            }
+            int insertAt = -index - 1;
+            long[] updated = new long[liked.length + 1];
+            System.arraycopy(liked, 0, updated, 0, insertAt);
+            updated[insertAt] = postId;
+            System.arraycopy(liked, insertAt, updated, insertAt + 1, liked.length - insertAt);
+            return updated;
+        });
+    }
+
+    private void removeLike(Long userId, Long postId) {
+        stamps.bump(userId);
+        likedByUser.asMap().computeIfPresent(userId, (id, liked) -> {
+            int index = Arrays.binarySearch(liked, postId);
+            if (index < 0) {
+                return liked;
+            }
+            long[] updated = new long[liked.length - 1];
+            System.arraycopy(liked, 0, updated, 0, index);
+            System.arraycopy(liked, index + 1, updated, index, liked.length - index - 1);
+            return updated;
+        });
+    }
+
+    private long[] snapshot(Long userId) {
+        long[] liked = likedByUser.getIfPresent(userId);
+        if (liked != null) {
+            return liked;
+        }
+        long stamp = stamps.get(userId);
+        liked = load(userId);
+        if (!stamps.unchanged(userId, stamp)) {
+            return liked;
+        }
+        long[] cached = likedByUser.asMap().putIfAbsent(userId, liked);
+        if (cached != null) {
+            return cached;
+        }
+        // A like between the check and the put did not find it in the cache
+        if (!stamps.unchanged(userId, stamp)) {
+            likedByUser.asMap().remove(userId, liked);
+        }
+        return liked;
+    }
+
+    private long[] load(Long userId) {
+        List<Long> ids = postRepository.findLikedPostIdsByUserId(userId);
+        long[] liked = new long[ids.size()];
+        for (int i = 0; i < liked.length; i++) {
+            liked[i] = ids.get(i);
+        }
+        Arrays.sort(liked);
+        return liked;
+    }
+}
@@ -0,0 +1,165 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.storage.StoredObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes stored files nothing points at any more: media replaced in updatePost, media of deleted
+ * posts, old profile photos and their image variants. Walks the store a batch per run, so a pass over
+ * millions of files is spread out instead of hammering the disk and the database, and starts the next
+ * pass a while after finishing one.
+ *
+ * A file is kept while it is younger than the grace period (it may belong to a post still being saved),
+ * while media, users or progress_update_attachments reference it, or while its media_blobs row says it
+ * is in use. The blob row is locked while the file is deleted, so a concurrent upload of the same
+ * content waits and then writes the file again instead of pointing at a deleted one.
+ */
+@Service
+public class MediaGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaGarbageCollector.class);
+
+    private static final String REFERENCED_URLS =
+        "SELECT url FROM media WHERE url IN (:urls) " +
+        "UNION SELECT thumbnail_url FROM media WHERE thumbnail_url IN (:urls) " +
+        "UNION SELECT feed_url FROM media WHERE feed_url IN (:urls) " +
+        "UNION SELECT profile_photo_url FROM users WHERE profile_photo_url IN (:urls) " +
+        "UNION SELECT attachment_url FROM progress_update_attachments WHERE attachment_url IN (:urls)";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${media.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${media.gc.batch-size:200}")
+    private int batchSize;
+
+    @Value("${media.gc.grace-period:24h}")
+    private Duration gracePeriod;
+
+    @Value("${media.gc.pass-interval:6h}")
+    private Duration passInterval;
+
+    // Position of the current pass; only touched by the scheduler thread
+    private String cursor;
+    private Instant nextPassAt = Instant.EPOCH;
+    private long scanned;
+    private long reclaimedFiles;
+    private long reclaimedBytes;
+
+    @Scheduled(fixedDelayString = "${media.gc.interval-ms:10000}", initialDelayString = "${media.gc.initial-delay-ms:60000}")
+    public void sweep() {
+        if (!enabled || (cursor == null && Instant.now().isBefore(nextPassAt))) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        try {
+            List<StoredObject> page = fileStorageService.list(cursor, batchSize);
+            if (page.isEmpty()) {
+                finishPass(cutoff);
+                return;
+            }
+            cursor = page.get(page.size() - 1).getName();
+            scanned += page.size();
+
+            List<StoredObject> candidates = page.stream()
+                    .filter(object -> object.getLastModified().isBefore(cutoff))
+                    .collect(Collectors.toList());
+            Set<String> referenced = referencedAmong(candidates);
+            for (StoredObject object : candidates) {
+                if (!referenced.contains(object.getName()) && reclaim(object.getName())) {
+                    reclaimedFiles++;
+                    reclaimedBytes += object.getSize();
+                }
+            }
+        } catch (IOException | UncheckedIOException | DataAccessException e) {
+            // The cursor only moves past a page once it was read, so the next run picks up where this one failed
+            logger.warn("Media sweep failed after {}", cursor, e);
+        }
+    }
+
+    private void finishPass(Instant cutoff) throws IOException {
+        long stagingBytes = fileStorageService.purgeStagingFiles(cutoff);
+        logger.info("Media sweep finished: {} files scanned, {} reclaimed ({} bytes), {} bytes of abandoned uploads",
+                scanned, reclaimedFiles, reclaimedBytes, stagingBytes);
+        cursor = null;
+        scanned = 0;
+        reclaimedFiles = 0;
+        reclaimedBytes = 0;
+        nextPassAt = Instant.now().plus(passInterval);
+    }
+
+    // One query for the whole batch, matching every URL spelling the app has stored for a file
+    private Set<String> referencedAmong(List<StoredObject> candidates) {
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        Map<String, String> namesByUrl = new HashMap<>();
+        for (StoredObject object : candidates) {
+            String name = object.getName();
+            namesByUrl.put(fileStorageService.urlOf(name), name);
+            namesByUrl.put(fileStorageService.publicUrl(name), name);
+            namesByUrl.put("/media/" + name, name);
+            namesByUrl.put("/profile-photos/" + name, name);
+        }
+        List<String> urls = namedParameterJdbcTemplate.queryForList(REFERENCED_URLS,
+                Map.of("urls", namesByUrl.keySet()), String.class);
+        Set<String> referenced = new HashSet<>();
+        for (String url : urls) {
+            referenced.add(namesByUrl.get(url));
+        }
+        return referenced;
+    }
+
+    private boolean reclaim(String filename) {
+        Boolean deleted = new TransactionTemplate(transactionManager).execute(status -> {
+            // Locks the row, or the gap where it would go, until the file is gone. The age is measured
+            // on the database clock, which also wrote updated_at.
+            List<Boolean> inUse = jdbcTemplate.queryForList(
+                "SELECT ref_count > 0 OR updated_at > TIMESTAMPADD(SECOND, ?, NOW()) FROM media_blobs WHERE filename = ? FOR UPDATE",
+                Boolean.class, -gracePeriod.toSeconds(), filename);
+            if (!inUse.isEmpty() && Boolean.TRUE.equals(inUse.get(0))) {
+                return false;
+            }
+            jdbcTemplate.update("DELETE FROM media_blobs WHERE filename = ?", filename);
+            try {
+                fileStorageService.delete(filename);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(deleted);
+    }
+}
@@ -0,0 +1,177 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.storage.StoredFile;
+import com.skillshare.platform.util.Transactions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes downscaled copies of uploaded images next to the original, a thumbnail and a feed-width
+ * version, and records their URLs on every Media row for that file. Runs on a small low-priority
+ * pool after the post is committed; until it finishes, or if it cannot decode the file, clients
+ * keep getting the original. Only formats ImageIO reads are handled, so videos are skipped.
+ */
+@Service
+public class MediaVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaVariantService.class);
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private ThreadPoolTaskExecutor mediaVariantExecutor;
+
+    @Value("${media.variants.thumbnail-width:320}")
+    private int thumbnailWidth;
+
+    @Value("${media.variants.feed-width:720}")
+    private int feedWidth;
+
+    public void scheduleVariants(Collection<StoredFile> files) {
+        List<StoredFile> images = files.stream()
+                .filter(file -> file.getContentType() != null && file.getContentType().startsWith("image/"))
+                .collect(Collectors.toList());
+        if (images.isEmpty()) {
+            return;
+        }
+        Transactions.afterCommit(() -> images.forEach(this::submit));
+    }
+
+    private void submit(StoredFile file) {
+        try {
+            mediaVariantExecutor.execute(() -> generate(file));
+        } catch (TaskRejectedException e) {
+            logger.warn("Variant queue is full; {} will be served at full size", file.getFilename());
+        }
+    }
+
+    private void generate(StoredFile file) {
+        String filename = file.getFilename();
+        try {
+            BufferedImage image = readForWidth(filename, feedWidth);
+            if (image == null) {
+                return;
+            }
+            String thumbnail = writeVariant(image, filename, thumbnailWidth);
+            String feed = writeVariant(image, filename, feedWidth);
+
+            String url = fileStorageService.urlOf(filename);
+            mediaRepository.setVariantUrls(url, fileStorageService.urlOf(thumbnail), fileStorageService.urlOf(feed));
+            for (Long postId : mediaRepository.findPostIdsByUrl(url)) {
+                postCache.evictPost(postId);
+                versionStamps.postChanged(postId);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not create variants for {}", filename, e);
+        }
+    }
+
+    /**
+     * Decodes the image, skipping source pixels while it stays at least twice the width needed, so a
+     * large photo never has to be held in memory at full resolution. Returns null for unreadable files.
+     */
+    private BufferedImage readForWidth(String filename, int width) throws IOException {
+        try (InputStream source = fileStorageService.open(filename);
+             ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, reader.getWidth(0) / (width * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Returns the variant's file name, or the original's when the image is already narrow enough
+    private String writeVariant(BufferedImage image, String filename, int width) throws IOException {
+        if (image.getWidth() <= width) {
+            return filename;
+        }
+        boolean alpha = image.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpg";
+        int dot = filename.lastIndexOf('.');
+        String variant = (dot > 0 ? filename.substring(0, dot) : filename) + "-w" + width + "." + format;
+
+        if (fileStorageService.exists(variant)) {
+            // Same content-addressed original, already done
+            return variant;
+        }
+        Path temp = fileStorageService.stagingFile(variant);
+        try {
+            if (!ImageIO.write(resize(image, width, alpha), format, temp.toFile())) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+            fileStorageService.storeDerived(variant, temp, "image/" + (alpha ? "png" : "jpeg"));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return variant;
+    }
+
+    // Halves with bilinear filtering until close to the target, which looks much better than one big step
+    private static BufferedImage resize(BufferedImage source, int width, boolean alpha) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = Math.max(1, (int) Math.round((double) currentHeight * nextWidth / currentWidth));
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth > width);
+        return current;
+    }
+}
@@ -0,0 +1,645 @@
+package com.skillshare.platform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.platform.dto.NotificationDTO;
+import com.skillshare.platform.model.Notification;
+import com.skillshare.platform.util.SegmentedLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind notification inserts. Producers put a notification on a bounded in-memory queue and
+ * return; a scheduled writer drains it and inserts everything pending in one JDBC batch. When the queue
+ * is full the producer falls back to inserting its own row, so nothing is dropped under load.
+ *
+ * With notifications.durability=spill every queued notification is also appended to a segmented log,
+ * cut and deleted around each batch the way LikeCounterService does it; segments left by a crash are
+ * inserted on the next start. That is at-least-once: a crash between the insert and the delete repeats
+ * a batch. With durability=none a crash loses at most one flush interval of notifications.
+ *
+ * A batch that fails on bad data (a recipient deleted since, a message too long) is written again row by
+ * row and the rows that cannot be stored are dead-lettered at once: logged, and with spill appended to
+ * log-dir/dead-letter for replay. A batch that fails for a passing reason waits in memory with a
+ * doubling pause and goes in with a later batch, while newer notifications keep draining; rows still
+ * failing after max-attempts are dead-lettered too. Their records are appended to the log again after
+ * every flush, so they survive a crash like anything still queued.
+ *
+ * Likes, comments and shares on a post are merged into the recipient's unread notification for the same
+ * post and type when its latest activity is within coalesce-window ("Ann and 41 others liked your post!"):
+ * the row is updated in place with a new actor count and the last few actors instead of getting a
+ * sibling, so a viral post costs its author one row per kind of activity rather than one per like.
+ * The rows a batch merges into are read with one query, and each merge only applies if the row still
+ * holds what was read; a row another instance merged into or the user read meanwhile is read again,
+ * locked, and the batch's actors are replayed onto it.
+ */
+@Service
+public class NotificationQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationQueue.class);
+
+    private static final String INSERT =
+        "INSERT INTO notifications (user_id, message, created_at, is_read, type, target_id, actor_count, latest_actors) " +
+        "VALUES (?, ?, ?, false, ?, ?, ?, ?)";
+
+    // Newest first, so the first row per (user_id, type, target_id) is the one to merge into
+    private static final String FIND_MERGE_TARGETS =
+        "SELECT id, user_id, type, target_id, created_at, actor_count, latest_actors FROM notifications " +
+        "WHERE is_read = false AND created_at >= ? AND (user_id, type, target_id) IN (%s) " +
+        "ORDER BY created_at DESC";
+
+    // Still unread and unchanged since it was read, or the row is read again; a merge always moves created_at
+    private static final String MERGE =
+        "UPDATE notifications SET message = ?, created_at = ?, actor_count = ?, latest_actors = ? " +
+        "WHERE id = ? AND is_read = false AND actor_count = ? AND created_at = ?";
+
+    // Users not counted yet are counted from scratch on their first read
+    private static final String ADD_UNREAD =
+        "UPDATE notification_counters SET unread = unread + ? WHERE user_id = ?";
+
+    private static final int LATEST_ACTORS = 3;
+
+    // Merges lost to other writers before the batch gives up and is retried as a whole
+    private static final int MERGE_ATTEMPTS = 3;
+
+    private static final TypeReference<List<Actor>> ACTOR_LIST = new TypeReference<>() { };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private NotificationStreams notificationStreams;
+
+    @Autowired
+    private UnreadCounter unreadCounter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.queue-capacity:10000}")
+    private int capacity;
+
+    @Value("${notifications.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notifications.durability:spill}")
+    private String durability;
+
+    @Value("${notifications.log-dir:data/notifications-log}")
+    private String logDir;
+
+    @Value("${notifications.coalesce-window:24h}")
+    private Duration coalesceWindow;
+
+    @Value("${notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notifications.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    private BlockingQueue<PendingNotification> queue;
+
+    // Producers share the read lock; the writer takes the write lock to cut the log and drain the queue together
+    private final ReentrantReadWriteLock drainLock = new ReentrantReadWriteLock();
+
+    private SegmentedLog notificationLog;
+
+    // Opened on the first notification given up on
+    private SegmentedLog deadLetterLog;
+
+    // Notifications that failed for a passing reason, oldest first, tried again once nextAttempt has passed
+    private final List<Retry> retry = new ArrayList<>();
+    private int consecutiveFailures;
+    private Instant nextAttempt = Instant.MIN;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PendingNotification {
+        private Long userId;
+        private String email;
+        private String message;
+        private LocalDateTime createdAt;
+        // Set for activity that can be merged; message is then rendered from the actors
+        private Notification.Type type;
+        private Long targetId;
+        private Long actorId;
+        private String actorName;
+    }
+
+    private static final class Retry {
+        final PendingNotification notification;
+        int attempts;
+
+        Retry(PendingNotification notification) {
+            this.notification = notification;
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Actor {
+        private Long id;
+        private String name;
+    }
+
+    // One notifications row about to be inserted, or merged into when id is set
+    static final class Row {
+        Long id;
+        Long userId;
+        String email;
+        LocalDateTime createdAt;
+        Notification.Type type;
+        Long targetId;
+        int actorCount;
+        List<Actor> latestActors = new ArrayList<>();
+        String message;
+        // The batch's actors, oldest first, replayed onto whatever the stored row holds
+        List<Actor> added = new ArrayList<>();
+        // The stored row as read, which the merge expects to find unchanged
+        int storedActorCount;
+        LocalDateTime storedCreatedAt;
+    }
+
+    @PostConstruct
+    public void open() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        if ("spill".equals(durability)) {
+            notificationLog = new SegmentedLog(Paths.get(logDir).toAbsolutePath().normalize(), "notifications");
+            recover(notificationLog.sealedSegments());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        if (notificationLog != null) {
+            notificationLog.close();
+        }
+        if (deadLetterLog != null) {
+            deadLetterLog.close();
+        }
+    }
+
+    public void enqueue(Long userId, String email, String message) {
+        enqueue(new PendingNotification(userId, email, message, LocalDateTime.now(), null, null, null, null));
+    }
+
+    public void enqueueActivity(Long userId, String email, Notification.Type type, Long targetId, Long actorId, String actorName) {
+        enqueue(new PendingNotification(userId, email, null, LocalDateTime.now(), type, targetId, actorId, actorName));
+    }
+
+    private void enqueue(PendingNotification notification) {
+        boolean queued;
+        drainLock.readLock().lock();
+        try {
+            queued = queue.offer(notification);
+            if (queued && notificationLog != null) {
+                notificationLog.append(toRecord(notification));
+            }
+        } finally {
+            drainLock.readLock().unlock();
+        }
+        if (!queued) {
+            logger.debug("Notification queue is full, inserting directly");
+            // Same lock as flush, so merges into one row never run concurrently
+            synchronized (this) {
+                try {
+                    insert(List.of(notification));
+                } catch (RuntimeException e) {
+                    // Runs after the like or comment it reports has committed, so it must not fail that request
+                    if (permanent(e)) {
+                        deadLetter(notification, e);
+                    } else {
+                        failed(List.of(new Retry(notification)), e);
+                        logAgain(retry);
+                    }
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.flush-interval-ms:250}")
+    public synchronized void flush() {
+        List<Retry> batch = new ArrayList<>();
+        if (!retry.isEmpty() && !Instant.now().isBefore(nextAttempt)) {
+            batch.addAll(retry);
+            retry.clear();
+        }
+        List<PendingNotification> drained = new ArrayList<>();
+        List<Path> segments = List.of();
+        drainLock.writeLock().lock();
+        try {
+            if (notificationLog != null) {
+                segments = notificationLog.rotate();
+            }
+            // Failures waiting to be retried count against capacity; past it producers insert their own rows
+            queue.drainTo(drained, Math.max(0, capacity - retry.size()));
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+        drained.forEach(notification -> batch.add(new Retry(notification)));
+
+        if (!batch.isEmpty()) {
+            store(batch);
+        }
+        // Whatever still waits is logged again before the segments it was in go
+        logAgain(retry);
+        deleteSegments(segments);
+    }
+
+    private void store(List<Retry> batch) {
+        try {
+            insert(notificationsOf(batch));
+            logger.debug("Inserted {} queued notifications", batch.size());
+            consecutiveFailures = 0;
+            return;
+        } catch (RuntimeException e) {
+            if (!permanent(e)) {
+                failed(batch, e);
+                return;
+            }
+            logger.warn("Failed to insert {} queued notifications, inserting them one by one: {}", batch.size(), e.getMessage());
+        }
+        // Some row can never be stored; one transaction per row finds it and lets the others in
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                insert(List.of(batch.get(i).notification));
+            } catch (RuntimeException e) {
+                if (!permanent(e)) {
+                    failed(batch.subList(i, batch.size()), e);
+                    return;
+                }
+                deadLetter(batch.get(i).notification, e);
+            }
+        }
+        consecutiveFailures = 0;
+    }
+
+    // Bad data rather than a bad moment: trying again cannot help
+    private static boolean permanent(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException
+                || e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    private void failed(List<Retry> rows, RuntimeException e) {
+        consecutiveFailures++;
+        Duration pause = retryBackoff.multipliedBy(1L << Math.min(consecutiveFailures - 1, 16));
+        nextAttempt = Instant.now().plus(pause);
+        logger.error("Failed to insert {} notifications, retrying in {}: {}", rows.size(), pause, e.getMessage());
+        for (Retry row : rows) {
+            if (++row.attempts >= maxAttempts) {
+                deadLetter(row.notification, e);
+            } else {
+                retry.add(row);
+            }
+        }
+    }
+
+    private void logAgain(List<Retry> rows) {
+        if (notificationLog == null) {
+            return;
+        }
+        try {
+            rows.forEach(row -> notificationLog.append(toRecord(row.notification)));
+        } catch (RuntimeException e) {
+            logger.error("Failed to log {} notifications waiting to be retried: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    // Never throws: it is the last stop for a notification
+    private void deadLetter(PendingNotification notification, RuntimeException cause) {
+        String record = toRecord(notification);
+        logger.error("Giving up on notification {}: {}", record, cause.getMessage());
+        if (!"spill".equals(durability)) {
+            return;
+        }
+        try {
+            if (deadLetterLog == null) {
+                deadLetterLog = new SegmentedLog(Paths.get(logDir, "dead-letter").toAbsolutePath().normalize(), "notifications");
+            }
+            deadLetterLog.append(record);
+        } catch (RuntimeException e) {
+            logger.error("Failed to dead-letter notification {}: {}", record, e.getMessage());
+        }
+    }
+
+    private static List<PendingNotification> notificationsOf(List<Retry> rows) {
+        return rows.stream().map(row -> row.notification).collect(Collectors.toList());
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void insert(List<PendingNotification> notifications) {
+        // Rows and unread counters commit together
+        List<Row> rows = new TransactionTemplate(transactionManager).execute(status -> write(notifications));
+
+        Set<String> recipients = new LinkedHashSet<>();
+        rows.forEach(row -> recipients.add(row.email));
+        recipients.forEach(versionStamps::notificationsChanged);
+        for (Row row : rows) {
+            notificationStreams.publish(row.email, new NotificationDTO(
+                    row.id,
+                    row.message,
+                    row.email,
+                    row.createdAt,
+                    false,
+                    row.type != null ? row.type.name() : null,
+                    row.targetId,
+                    row.actorCount,
+                    row.latestActors.stream().map(Actor::getName).collect(Collectors.toList())));
+        }
+    }
+
+    private List<Row> write(List<PendingNotification> notifications) {
+        List<Row> rows = new ArrayList<>();
+        Map<String, Row> merged = new LinkedHashMap<>();
+        for (PendingNotification notification : notifications) {
+            if (notification.getType() == null) {
+                Row row = newRow(notification);
+                row.message = notification.getMessage();
+                rows.add(row);
+                continue;
+            }
+            // Activity within the batch is combined first, then with what is already stored
+            Row row = merged.computeIfAbsent(keyOf(notification.getUserId(), notification.getType().name(), notification.getTargetId()),
+                    key -> newRow(notification));
+            row.added.add(new Actor(notification.getActorId(), notification.getActorName()));
+            row.createdAt = notification.getCreatedAt();
+        }
+        loadMergeTargets(new ArrayList<>(merged.values()), false);
+        rows.addAll(merged.values());
+
+        List<Row> updates = rows.stream().filter(row -> row.id != null).collect(Collectors.toList());
+        List<Row> inserts = rows.stream().filter(row -> row.id == null).collect(Collectors.toList());
+        for (int attempt = 1; !updates.isEmpty(); attempt++) {
+            List<Row> lost = merge(updates);
+            if (lost.isEmpty()) {
+                break;
+            }
+            if (attempt == MERGE_ATTEMPTS) {
+                throw new IllegalStateException("Notifications kept changing while merging into them: " +
+                        lost.stream().map(row -> row.id).collect(Collectors.toList()));
+            }
+            // Read or merged into by someone else since; a locking read sees the latest and keeps it until commit
+            loadMergeTargets(lost, true);
+            lost.stream().filter(row -> row.id == null).forEach(inserts::add);
+            updates = lost.stream().filter(row -> row.id != null).collect(Collectors.toList());
+        }
+        for (int from = 0; from < inserts.size(); from += batchSize) {
+            insertBatch(inserts.subList(from, Math.min(from + batchSize, inserts.size())));
+        }
+
+        // Only new rows are new unread notifications; a merge goes into one that is already counted
+        Map<Long, Integer> added = new LinkedHashMap<>();
+        inserts.forEach(row -> added.merge(row.userId, 1, Integer::sum));
+        jdbcTemplate.batchUpdate(ADD_UNREAD, new ArrayList<>(added.entrySet()), batchSize, (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+        });
+        rows.forEach(row -> unreadCounter.changed(row.email));
+        return rows;
+    }
+
+    private Row newRow(PendingNotification notification) {
+        Row row = new Row();
+        row.userId = notification.getUserId();
+        row.email = notification.getEmail();
+        row.createdAt = notification.getCreatedAt();
+        row.type = notification.getType();
+        row.targetId = notification.getTargetId();
+        return row;
+    }
+
+    // Returns the rows whose merge did not apply
+    private List<Row> merge(List<Row> updates) {
+        int[][] counts = jdbcTemplate.batchUpdate(MERGE, updates, batchSize, (ps, row) -> {
+            ps.setString(1, row.message);
+            ps.setTimestamp(2, Timestamp.valueOf(row.createdAt));
+            ps.setInt(3, row.actorCount);
+            ps.setString(4, toJson(row.latestActors));
+            ps.setLong(5, row.id);
+            ps.setInt(6, row.storedActorCount);
+            ps.setTimestamp(7, Timestamp.valueOf(row.storedCreatedAt));
+        });
+        List<Row> lost = new ArrayList<>();
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                Row row = updates.get(index++);
+                if (count == 0) {
+                    lost.add(row);
+                }
+            }
+        }
+        return lost;
+    }
+
+    // Points each row at the unread row of the same kind its activity joins, or at nothing to insert, and replays its actors
+    private void loadMergeTargets(List<Row> rows, boolean lock) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Row> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            Map<String, Row> byKey = new LinkedHashMap<>();
+            List<Object> args = new ArrayList<>();
+            // One cutoff for the chunk, from its oldest activity; the batch spans one flush interval
+            LocalDateTime oldest = chunk.stream().map(row -> row.createdAt).min(LocalDateTime::compareTo).orElseThrow();
+            args.add(Timestamp.valueOf(oldest.minus(coalesceWindow)));
+            for (Row row : chunk) {
+                byKey.put(keyOf(row.userId, row.type.name(), row.targetId), row);
+                args.add(row.userId);
+                args.add(row.type.name());
+                args.add(row.targetId);
+                reset(row, null, null, 0, new ArrayList<>());
+            }
+            String sql = String.format(FIND_MERGE_TARGETS, String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?)")));
+            jdbcTemplate.query(lock ? sql + " FOR UPDATE" : sql, rs -> {
+                Row row = byKey.remove(keyOf(rs.getLong("user_id"), rs.getString("type"), rs.getLong("target_id")));
+                if (row != null) {
+                    reset(row, rs.getLong("id"), rs.getTimestamp("created_at").toLocalDateTime(),
+                            rs.getInt("actor_count"), actorsOf(rs.getString("latest_actors")));
+                }
+            }, args.toArray());
+            for (Row row : chunk) {
+                row.added.forEach(actor -> addActor(row, actor));
+                row.message = messageFor(row);
+            }
+        }
+    }
+
+    private static void reset(Row row, Long id, LocalDateTime storedCreatedAt, int actorCount, List<Actor> latestActors) {
+        row.id = id;
+        row.storedCreatedAt = storedCreatedAt;
+        row.storedActorCount = actorCount;
+        row.actorCount = actorCount;
+        row.latestActors = latestActors;
+    }
+
+    private static String keyOf(Long userId, String type, Long targetId) {
+        return userId + ":" + type + ":" + targetId;
+    }
+
+    // Someone already among the latest actors (an unlike and like again) moves to the front without counting twice
+    static void addActor(Row row, Actor actor) {
+        boolean known = row.latestActors.removeIf(latest -> latest.getId() != null && latest.getId().equals(actor.getId()));
+        if (!known) {
+            row.actorCount++;
+        }
+        row.latestActors.add(0, actor);
+        while (row.latestActors.size() > LATEST_ACTORS) {
+            row.latestActors.remove(row.latestActors.size() - 1);
+        }
+    }
+
+    static String messageFor(Row row) {
+        String verb = switch (row.type) {
+            case LIKE -> "liked your post!";
+            case COMMENT -> "commented on your post!";
+            case SHARE -> "shared your post!";
+        };
+        String latest = row.latestActors.get(0).getName();
+        if (row.actorCount <= 1) {
+            return latest + " " + verb;
+        }
+        if (row.actorCount == 2 && row.latestActors.size() > 1) {
+            return latest + " and " + row.latestActors.get(1).getName() + " " + verb;
+        }
+        int others = row.actorCount - 1;
+        return latest + " and " + others + (others == 1 ? " other " : " others ") + verb;
+    }
+
+    // Fills in the generated ids, so pushed notifications carry the id clients mark as read
+    private void insertBatch(List<Row> chunk) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Row row = chunk.get(i);
+                    ps.setLong(1, row.userId);
+                    ps.setString(2, row.message);
+                    ps.setTimestamp(3, Timestamp.valueOf(row.createdAt));
+                    ps.setString(4, row.type != null ? row.type.name() : null);
+                    ps.setObject(5, row.targetId);
+                    ps.setInt(6, row.actorCount);
+                    ps.setString(7, row.latestActors.isEmpty() ? null : toJson(row.latestActors));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunk.size();
+                }
+            },
+            keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() == chunk.size()) {
+            for (int i = 0; i < chunk.size(); i++) {
+                Map<String, Object> key = keys.get(i);
+                chunk.get(i).id = key.isEmpty() ? null : ((Number) key.values().iterator().next()).longValue();
+            }
+        }
+    }
+
+    public List<Actor> actorsOf(String latestActors) {
+        if (latestActors == null || latestActors.isBlank()) {
+            return new ArrayList<>();
+        }
+        try {
+            return new ArrayList<>(objectMapper.readValue(latestActors, ACTOR_LIST));
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring unreadable latest actors: {}", latestActors);
+            return new ArrayList<>();
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteSegments(List<Path> segments) {
+        if (notificationLog != null) {
+            notificationLog.delete(segments);
+        }
+    }
+
+    private String toRecord(PendingNotification notification) {
+        return toJson(notification);
+    }
+
+    private void recover(List<Path> segments) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        List<PendingNotification> notifications = new ArrayList<>();
+        for (String record : SegmentedLog.readRecords(segments)) {
+            try {
+                notifications.add(objectMapper.readValue(record, PendingNotification.class));
+            } catch (JsonProcessingException e) {
+                logger.warn("Skipping unreadable notification log record: {}", record);
+            }
+        }
+        try {
+            insert(notifications);
+        } catch (RuntimeException e) {
+            // Startup goes on; the segments stay until a flush has stored or logged their notifications again
+            logger.error("Failed to insert {} notifications left in the log by the previous run: {}",
+                    notifications.size(), e.getMessage());
+            failed(notifications.stream().map(Retry::new).collect(Collectors.toList()), e);
+            return;
+        }
+        notificationLog.delete(segments);
+        logger.info("Inserted {} notifications left in the log by the previous run", notifications.size());
+    }
+}
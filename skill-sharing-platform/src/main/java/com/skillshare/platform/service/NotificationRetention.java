@@ -0,0 +1,81 @@
+package com.skillshare.platform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes read notifications older than read-max-age, oldest first and a batch per run, so the table
+ * stays about as large as what users still look at and a backlog of millions is worked off without long
+ * locks or a burst of deletes. Unread notifications are kept however old they are.
+ */
+@Service
+public class NotificationRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetention.class);
+
+    private static final String FIND_EXPIRED =
+        "SELECT n.id, u.email FROM notifications n JOIN users u ON u.id = n.user_id " +
+        "WHERE n.is_read = true AND n.created_at < ? ORDER BY n.created_at LIMIT ?";
+
+    // is_read again in case a notification merged new activity since, which it only does while unread
+    private static final String DELETE_EXPIRED =
+        "DELETE FROM notifications WHERE id IN (:ids) AND is_read = true";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Value("${notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notifications.retention.read-max-age:90d}")
+    private Duration readMaxAge;
+
+    @Value("${notifications.retention.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${notifications.retention.interval-ms:10000}", initialDelayString = "${notifications.retention.initial-delay-ms:60000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(readMaxAge));
+        try {
+            List<Long> ids = new ArrayList<>();
+            Set<String> recipients = new LinkedHashSet<>();
+            jdbcTemplate.query(FIND_EXPIRED, rs -> {
+                ids.add(rs.getLong("id"));
+                recipients.add(rs.getString("email"));
+            }, cutoff, batchSize);
+            if (ids.isEmpty()) {
+                return;
+            }
+            int deleted = namedParameterJdbcTemplate.update(DELETE_EXPIRED, new MapSqlParameterSource("ids", ids));
+            recipients.forEach(versionStamps::notificationsChanged);
+            logger.debug("Deleted {} read notifications older than {}", deleted, readMaxAge);
+        } catch (DataAccessException e) {
+            logger.warn("Notification retention failed", e);
+        }
+    }
+}
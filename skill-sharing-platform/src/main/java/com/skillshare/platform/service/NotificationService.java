@@ -1,58 +1,136 @@
 package com.skillshare.platform.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import com.skillshare.platform.dto.CursorPageDTO;
 import com.skillshare.platform.dto.NotificationDTO;
 import com.skillshare.platform.model.Notification;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.NotificationRepository;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.util.KeysetCursor;
+import com.skillshare.platform.util.Transactions;
+import jakarta.transaction.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 public class NotificationService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
-    public List<NotificationDTO> findByUserEmail(String email) {
-        return notificationRepository.findByUserEmailOrderByCreatedAtDesc(email).stream()
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private NotificationQueue notificationQueue;
+
+    @Autowired
+    private UnreadCounter unreadCounter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // The newest notifications only; older ones are read page by page
+    public List<NotificationDTO> findByUserEmail(String email, int limit) {
+        return findPageByUserEmail(email, null, limit).getItems();
+    }
+
+    public CursorPageDTO<NotificationDTO> findPageByUserEmail(String email, String cursor, int limit) {
+        User user = userRepository.findByEmail(email)
+            .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findPageByUserId(user.getId(), pageable);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            notifications = notificationRepository.findPageByUserIdAfter(user.getId(), position.getCreatedAt(), position.getId(), pageable);
+        }
+
+        String nextCursor = null;
+        if (notifications.size() > pageSize) {
+            notifications = notifications.subList(0, pageSize);
+            Notification last = notifications.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        List<NotificationDTO> items = notifications.stream()
             .map(notification -> new NotificationDTO(
                     notification.getId(),
                     notification.getMessage(),
-                    notification.getUser().getEmail(),
+                    email,
                     notification.getCreatedAt(),
-                    notification.isRead()
+                    notification.isRead(),
+                    notification.getType() != null ? notification.getType().name() : null,
+                    notification.getTargetId(),
+                    notification.getActorCount(),
+                    notificationQueue.actorsOf(notification.getLatestActors()).stream()
+                            .map(NotificationQueue.Actor::getName)
+                            .collect(Collectors.toList())
             )).collect(Collectors.toList());
+        return new CursorPageDTO<>(items, nextCursor);
     }
 
+    // Queued once the caller's transaction commits and inserted in the background with others
     public void createNotification(User user, String message) {
-        Notification notification = new Notification();
-        notification.setUser(user);
-        notification.setMessage(message);
-        notification.setCreatedAt(LocalDateTime.now());
-        notification.setRead(false);
-        notificationRepository.save(notification);
+        Long userId = user.getId();
+        String email = user.getEmail();
+        Transactions.afterCommit(() -> notificationQueue.enqueue(userId, email, message));
     }
 
+    // Likes, comments and shares on one post are merged into the recipient's latest unread notification for it
+    public void createNotification(User recipient, Notification.Type type, Long targetId, User actor) {
+        Long userId = recipient.getId();
+        String email = recipient.getEmail();
+        Long actorId = actor.getId();
+        String actorName = actor.getName();
+        Transactions.afterCommit(() -> notificationQueue.enqueueActivity(userId, email, type, targetId, actorId, actorName));
+    }
+
+    @Transactional
     public void markAsRead(Long notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
             .orElseThrow(() -> new IllegalArgumentException("Notification not found"));
-        notification.setRead(true);
-        notificationRepository.save(notification);
+        User user = notification.getUser();
+        // Only the call that flips the flag takes it off the count
+        if (notificationRepository.markAsRead(notificationId) == 1) {
+            unreadCounter.add(user.getId(), user.getEmail(), -1);
+        }
+        versionStamps.notificationsChanged(user.getEmail());
     }
 
+    @Transactional
     public void markAllAsRead(String email) {
-        List<Notification> notifications = notificationRepository.findByUserEmailAndIsReadFalse(email); // Updated method name
-        for (Notification notification : notifications) {
-            notification.setRead(true);
-        }
-        notificationRepository.saveAll(notifications);
+        User user = userRepository.findByEmail(email)
+            .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        int read = notificationRepository.markAllAsRead(user.getId());
+        unreadCounter.add(user.getId(), email, -read);
+        versionStamps.notificationsChanged(email);
+    }
+
+    public long unreadCount(String email) {
+        return unreadCounter.unreadCount(email);
     }
 
+    @Transactional
     public void deleteNotification(Long notificationId) {
-        notificationRepository.deleteById(notificationId);
+        notificationRepository.findById(notificationId).ifPresent(notification -> {
+            User user = notification.getUser();
+            if (notificationRepository.deleteByIdAndRead(notificationId, false) == 1) {
+                unreadCounter.add(user.getId(), user.getEmail(), -1);
+            } else {
+                notificationRepository.deleteByIdAndRead(notificationId, true);
+            }
+            versionStamps.notificationsChanged(user.getEmail());
+        });
     }
-}
\ No newline at end of file
+}
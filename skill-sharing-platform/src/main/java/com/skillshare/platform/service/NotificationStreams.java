@@ -0,0 +1,220 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.NotificationDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open server-sent event streams, by user. An idle stream is only a socket and a small object, no thread,
+ * so tens of thousands can stay open. Events are queued per subscriber and written by a small push pool;
+ * a subscriber that falls pending-limit events behind is closed rather than buffered for, and its
+ * EventSource reconnects and refetches. A comment line every heartbeat interval keeps proxies from
+ * closing idle streams and finds dead ones; idle streams are pinged heartbeat-batch-size to a push task,
+ * so a heartbeat costs the pool a few tasks rather than one per connection.
+ */
+@Service
+public class NotificationStreams {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreams.class);
+
+    @Autowired
+    private ThreadPoolTaskExecutor notificationPushExecutor;
+
+    @Value("${notifications.stream.max-connections:50000}")
+    private int maxConnections;
+
+    @Value("${notifications.stream.pending-limit:16}")
+    private int pendingLimit;
+
+    @Value("${notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notifications.stream.heartbeat-batch-size:500}")
+    private int heartbeatBatchSize;
+
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Opens a stream for the user, or returns null when the connection limit is reached.
+     */
+    public SseEmitter subscribe(String email) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(email, emitter);
+        // Added inside compute so a concurrent remove cannot drop the set this subscriber went into
+        subscribers.compute(email, (key, forUser) -> {
+            Set<Subscriber> set = forUser != null ? forUser : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(error -> subscriber.remove());
+        // Sent straight away so the client knows the stream is live and how soon to come back
+        subscriber.offer(SseEmitter.event().comment("connected").reconnectTime(5000));
+        return emitter;
+    }
+
+    public void publish(String email, NotificationDTO notification) {
+        Set<Subscriber> forUser = subscribers.get(email);
+        if (forUser == null) {
+            return;
+        }
+        for (Subscriber subscriber : forUser) {
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name("notification").data(notification);
+            if (notification.getId() != null) {
+                event.id(String.valueOf(notification.getId()));
+            }
+            subscriber.offer(event);
+        }
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        List<Subscriber> batch = new ArrayList<>();
+        for (Set<Subscriber> forUser : subscribers.values()) {
+            for (Subscriber subscriber : forUser) {
+                // A subscriber with events waiting is not idle, and a ping would tell us nothing new
+                if (subscriber.pending.isEmpty()) {
+                    batch.add(subscriber);
+                }
+                if (batch.size() == heartbeatBatchSize) {
+                    ping(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            ping(batch);
+        }
+    }
+
+    private void ping(List<Subscriber> batch) {
+        try {
+            notificationPushExecutor.execute(() -> batch.forEach(Subscriber::ping));
+        } catch (TaskRejectedException e) {
+            // Events come first; these streams are pinged on the next heartbeat
+            logger.debug("Skipped the heartbeat of {} notification streams: push queue is full", batch.size());
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        subscribers.values().forEach(forUser -> forUser.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private final class Subscriber {
+        private final String email;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(pendingLimit);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        Subscriber(String email, SseEmitter emitter) {
+            this.email = email;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (removed.get()) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                logger.debug("Closing notification stream for {}: {} events behind", email, pendingLimit);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                notificationPushExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        // At most one drain per subscriber runs at a time, so events stay in order
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!removed.get() && (event = pending.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container reports it through onError or onCompletion too
+                remove();
+            } finally {
+                draining.set(false);
+            }
+            if (!pending.isEmpty() && !removed.get()) {
+                schedule();
+            }
+        }
+
+        // Written in place of a drain, so it never interleaves with one; a stream being drained needs no ping
+        void ping() {
+            if (removed.get() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                remove();
+            } finally {
+                draining.set(false);
+            }
+            if (!pending.isEmpty() && !removed.get()) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            remove();
+            emitter.complete();
+        }
+
+        void remove() {
+            if (!removed.compareAndSet(false, true)) {
+                return;
+            }
+            connections.decrementAndGet();
+            pending.clear();
+            subscribers.computeIfPresent(email, (key, forUser) -> {
+                forUser.remove(this);
+                return forUser.isEmpty() ? null : forUser;
+            });
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.dto.UserDTO;
+import com.skillshare.platform.model.Comment;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.MediaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds PostDTOs for a batch of posts with a fixed number of queries, regardless of page size:
+ * one for media, one for the newest few comments of each post with their authors and one for the
+ * comment totals. The viewer's likes come from LikedPostIndex.
+ * Posts must be loaded with their author already fetched (see the JOIN FETCH queries in PostRepository).
+ */
+@Service
+public class PostAssembler {
+
+    @Autowired
+    private LikedPostIndex likedPostIndex;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Value("${feed.comment-preview-size:3}")
+    private int commentPreviewSize;
+
+    public PostDTO toDTO(Post post, Long viewerId) {
+        return toDTOs(List.of(post), viewerId).get(0);
+    }
+
+    public List<PostDTO> toDTOs(List<Post> posts, Long viewerId) {
+        if (posts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> postIds = posts.stream()
+                .map(Post::getId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, List<MediaRepository.MediaUrlView>> mediaByPost = mediaRepository.findUrlsByPostIds(postIds).stream()
+                .collect(Collectors.groupingBy(MediaRepository.MediaUrlView::getPostId));
+
+        Map<Long, List<CommentDTO>> commentsByPost = new HashMap<>();
+        for (Comment comment : commentRepository.findPreviewsByPostIds(postIds, commentPreviewSize)) {
+            commentsByPost.computeIfAbsent(comment.getPost().getId(), id -> new ArrayList<>())
+                    .add(new CommentDTO(
+                        comment.getId(),
+                        comment.getContent(),
+                        comment.getCreatedAt(),
+                        UserDTO.summaryOf(comment.getUser())
+                    ));
+        }
+
+        Map<Long, Long> commentCounts = new HashMap<>();
+        for (Object[] row : commentRepository.countByPostIds(postIds)) {
+            commentCounts.put((Long) row[0], (Long) row[1]);
+        }
+
+        Set<Long> likedPostIds = viewerId != null
+                ? likedPostIndex.likedAmong(viewerId, postIds)
+                : Collections.emptySet();
+
+        return posts.stream()
+                .map(post -> new PostDTO(
+                    post.getId(),
+                    post.getContent(),
+                    likeCounterService.currentLikes(post.getId(), post.getLikes()),
+                    post.getCreatedAt(),
+                    likedPostIds.contains(post.getId()),
+                    post.getUser(),
+                    commentsByPost.getOrDefault(post.getId(), Collections.emptyList()),
+                    commentCounts.getOrDefault(post.getId(), 0L),
+                    urlsOf(mediaByPost.get(post.getId()), MediaRepository.MediaUrlView::getUrl),
+                    urlsOf(mediaByPost.get(post.getId()), MediaRepository.MediaUrlView::getThumbnailUrl)
+                ))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> urlsOf(List<MediaRepository.MediaUrlView> media, Function<MediaRepository.MediaUrlView, String> url) {
+        if (media == null) {
+            return Collections.emptyList();
+        }
+        return media.stream().map(url).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,197 @@
+package com.skillshare.platform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.util.StripedStamps;
+import com.skillshare.platform.util.Transactions;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches user-agnostic PostDTOs by post id and feed pages as lists of post ids.
+ * Caffeine evicts with W-TinyLFU, weighing each post by its serialized JSON size. The viewer's
+ * isLiked flag is applied to a copy after the lookup, so one entry serves every user.
+ *
+ * Write paths evict after their transaction commits. A load that raced with a write is returned
+ * to its caller but not cached: every eviction bumps a stamp and loads only store their result
+ * when the stamps they saw before reading the database are unchanged.
+ */
+@Service
+public class PostCache {
+
+    private static final int STAMP_STRIPES = 1024;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostAssembler postAssembler;
+
+    @Autowired
+    private LikedPostIndex likedPostIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${cache.posts.max-weight-bytes:67108864}")
+    private long maxPostBytes;
+
+    @Value("${cache.feed-pages.max-size:1000}")
+    private long maxFeedPages;
+
+    private Cache<Long, PostDTO> posts;
+    private Cache<String, FeedPage> feedPages;
+
+    private final StripedStamps postStamps = new StripedStamps(STAMP_STRIPES);
+    private final AtomicLong feedStamp = new AtomicLong();
+
+    @Getter
+    @AllArgsConstructor
+    public static class FeedPage {
+        private final List<Long> postIds;
+        private final String nextCursor;
+    }
+
+    @PostConstruct
+    public void init() {
+        posts = Caffeine.newBuilder()
+                .maximumWeight(maxPostBytes)
+                .weigher((Long id, PostDTO post) -> weigh(post))
+                .build();
+        feedPages = Caffeine.newBuilder()
+                .maximumSize(maxFeedPages)
+                .build();
+    }
+
+    /**
+     * Posts in the order of postIds, skipping ids that no longer exist, with isLiked set for the viewer.
+     */
+    public List<PostDTO> getPosts(List<Long> postIds, Long viewerId) {
+        Map<Long, PostDTO> found = new HashMap<>(posts.getAllPresent(postIds));
+        List<Long> missing = postIds.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .collect(Collectors.toList());
+
+        if (!missing.isEmpty()) {
+            long[] stamps = new long[missing.size()];
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = postStamps.get(missing.get(i));
+            }
+            List<Post> loaded = postRepository.findWithUserByIdIn(missing);
+            Map<Long, PostDTO> loadedById = postAssembler.toDTOs(loaded, null).stream()
+                    .collect(Collectors.toMap(PostDTO::getId, post -> post));
+            for (int i = 0; i < stamps.length; i++) {
+                PostDTO post = loadedById.get(missing.get(i));
+                if (post == null) {
+                    continue;
+                }
+                found.put(post.getId(), post);
+                if (postStamps.unchanged(post.getId(), stamps[i])) {
+                    posts.put(post.getId(), post);
+                }
+            }
+        }
+
+        Set<Long> liked = viewerId != null
+                ? likedPostIndex.likedAmong(viewerId, found.keySet())
+                : Collections.emptySet();
+        List<PostDTO> result = new ArrayList<>();
+        for (Long postId : postIds) {
+            PostDTO post = found.get(postId);
+            if (post != null) {
+                result.add(withLiked(post, liked.contains(postId)));
+            }
+        }
+        return result;
+    }
+
+    public FeedPage getFeedPage(String cursor, int pageSize, Supplier<FeedPage> loader) {
+        String key = (cursor != null ? cursor : "") + "|" + pageSize;
+        FeedPage page = feedPages.getIfPresent(key);
+        if (page != null) {
+            return page;
+        }
+        long stamp = feedStamp.get();
+        page = loader.get();
+        if (feedStamp.get() == stamp) {
+            feedPages.put(key, page);
+        }
+        return page;
+    }
+
+    // Content, media, likes or comments of one post changed
+    public void evictPost(Long postId) {
+        Transactions.afterCommit(() -> {
+            postStamps.bump(postId);
+            posts.invalidate(postId);
+        });
+    }
+
+    // A new post only shifts the first page; later pages are anchored to their cursor and stay valid
+    public void evictFeedHead() {
+        Transactions.afterCommit(() -> {
+            feedStamp.incrementAndGet();
+            feedPages.asMap().keySet().removeIf(key -> key.startsWith("|"));
+        });
+    }
+
+    public void evictDeletedPost(Long postId) {
+        Transactions.afterCommit(() -> {
+            postStamps.bump(postId);
+            feedStamp.incrementAndGet();
+            posts.invalidate(postId);
+            feedPages.asMap().values().removeIf(page -> page.getPostIds().contains(postId));
+        });
+    }
+
+    // Author names and photos are embedded in posts and comment previews
+    public void evictAllPosts() {
+        Transactions.afterCommit(() -> {
+            postStamps.bumpAll();
+            posts.invalidateAll();
+        });
+    }
+
+    private int weigh(PostDTO post) {
+        try {
+            return objectMapper.writeValueAsBytes(post).length;
+        } catch (JsonProcessingException e) {
+            return 4096;
+        }
+    }
+
+    private static PostDTO withLiked(PostDTO post, boolean liked) {
+        return new PostDTO(
+            post.getId(),
+            post.getContent(),
+            post.getLikes(),
+            post.getCreatedAt(),
+            liked,
+            post.getUser(),
+            post.getComments(),
+            post.getCommentCount(),
+            post.getMediaUrls(),
+            post.getThumbnailUrls()
+        );
+    }
+}
@@ -0,0 +1,115 @@
+package com.skillshare.platform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.platform.dto.PostExportDTO;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.repository.PostRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Writes every post as newline-delimited JSON. Rows are streamed from the database and each entity
+ * is detached once written, with the persistence context cleared every batch, so heap use stays
+ * flat however many posts there are.
+ *
+ * The export only reads the posts and users tables: while MySQL streams a result set the connection
+ * cannot run other statements, so media and comments are not included. For the same reason only
+ * export.max-concurrent exports run at once; callers take a slot with tryAcquire and give it back
+ * with release once the response is written.
+ */
+@Service
+public class PostExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostExportService.class);
+    private static final byte[] NEWLINE = {'\n'};
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${export.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Semaphore running;
+
+    @PostConstruct
+    void init() {
+        running = new Semaphore(maxConcurrent);
+    }
+
+    public boolean tryAcquire() {
+        return running.tryAcquire();
+    }
+
+    public void release() {
+        running.release();
+    }
+
+    public void exportPosts(OutputStream outputStream) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        long exported = transactionTemplate.execute(status -> {
+            BufferedOutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+            long count = 0;
+            try (Stream<Post> posts = postRepository.streamAllWithUser()) {
+                Iterator<Post> iterator = posts.iterator();
+                while (iterator.hasNext()) {
+                    Post post = iterator.next();
+                    PostExportDTO line = new PostExportDTO(
+                        post.getId(),
+                        post.getContent(),
+                        likeCounterService.currentLikes(post.getId(), post.getLikes()),
+                        post.getCreatedAt(),
+                        post.getUser() != null ? post.getUser().getId() : null,
+                        post.getUser() != null ? post.getUser().getName() : null
+                    );
+                    out.write(objectMapper.writeValueAsBytes(line));
+                    out.write(NEWLINE);
+                    entityManager.detach(post);
+
+                    if (++count % batchSize == 0) {
+                        // Authors are shared between rows, so they are only released here
+                        entityManager.clear();
+                        out.flush();
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write post export", e);
+            }
+            return count;
+        });
+        logger.info("Exported {} posts", exported);
+    }
+}
@@ -1,10 +1,12 @@
 package com.skillshare.platform.service;
 
-import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.CursorPageDTO;
+import com.skillshare.platform.dto.FailedUploadDTO;
+import com.skillshare.platform.dto.PostCreatedDTO;
 import com.skillshare.platform.dto.PostDTO;
 import com.skillshare.platform.dto.SharedPostDTO;
-import com.skillshare.platform.model.Comment;
 import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.Notification;
 import com.skillshare.platform.model.Post;
 import com.skillshare.platform.model.SharedPost;
 import com.skillshare.platform.model.User;
@@ -12,24 +14,42 @@ import com.skillshare.platform.repository.PostRepository;
 import com.skillshare.platform.repository.SharedPostRepository;
 import com.skillshare.platform.repository.UserRepository;
 import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.storage.StoredFile;
+import com.skillshare.platform.util.KeysetCursor;
 
 import jakarta.transaction.Transactional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
 public class PostService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostService.class);
+    private static final int MAX_FEED_LIMIT = 100;
+    // Cache misses are loaded with one IN query per slice, which keeps each query's id list bounded
+    private static final int ALL_POSTS_SLICE = 500;
+
     @Autowired
     private PostRepository postRepository;
 
@@ -41,7 +61,6 @@ public class PostService {
 
     @Autowired
     private MediaRepository mediaRepository;
-    private S3Service s3Service;
 
     @Autowired
     private NotificationService notificationService;
@@ -49,152 +68,209 @@ public class PostService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private PostAssembler postAssembler;
+
+    @Autowired
+    private LikedPostIndex likedPostIndex;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private MediaVariantService mediaVariantService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor mediaUploadExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     public List<PostDTO> findAllPosts(String userEmail) {
-        User currentUser = userEmail != null ? userRepository.findByEmail(userEmail).orElse(null) : null;
-        return postRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt")).stream().map(post -> {
-            List<CommentDTO> commentDTOs = post.getComments().stream().map(comment -> {
-                return new CommentDTO(
-                    comment.getId(),
-                    comment.getContent(),
-                    comment.getCreatedAt(),
-                    comment.getUser()
-                );
-            }).collect(Collectors.toList());
-            
-            List<String> mediaUrls = post.getMediaFiles().stream()
-                .map(Media::getUrl)
-                .collect(Collectors.toList());
-            
-            return new PostDTO(
-                post.getId(),
-                post.getContent(),
-                post.getLikes(),
-                post.getCreatedAt(),
-                currentUser != null && post.getLikedUsers().contains(currentUser), // Ensure this evaluates correctly
-                post.getUser(),
-                commentDTOs,
-                mediaUrls  
-            );
-        }).collect(Collectors.toList());
+        Long viewerId = findUserId(userEmail);
+        List<Long> postIds = postRepository.findAllIds();
+        List<PostDTO> posts = new ArrayList<>(postIds.size());
+        for (int from = 0; from < postIds.size(); from += ALL_POSTS_SLICE) {
+            List<Long> slice = postIds.subList(from, Math.min(from + ALL_POSTS_SLICE, postIds.size()));
+            posts.addAll(postCache.getPosts(slice, viewerId));
+        }
+        return posts;
     }
 
-    public PostDTO findPostById(Long id, String userEmail) {
-        User currentUser = userEmail != null ? userRepository.findByEmail(userEmail).orElse(null) : null;
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Post not found with ID: " + id));
-
-        List<CommentDTO> commentDTOs = post.getComments().stream().map(comment -> {
-            return new CommentDTO(
-                comment.getId(),
-                comment.getContent(),
-                comment.getCreatedAt(),
-                comment.getUser()
-            );
-        }).collect(Collectors.toList());
-
-        List<String> mediaUrls = post.getMediaFiles().stream()
-            .map(Media::getUrl)
-            .collect(Collectors.toList());
-
-        return new PostDTO(
-            post.getId(),
-            post.getContent(),
-            post.getLikes(),
-            post.getCreatedAt(),
-            currentUser != null && post.getLikedUsers().contains(currentUser),
-            post.getUser(),
-            commentDTOs,
-            mediaUrls
-        );
+    public CursorPageDTO<PostDTO> findFeed(String userEmail, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_LIMIT));
+        String position = cursor == null || cursor.isBlank() ? null : cursor;
+        PostCache.FeedPage page = postCache.getFeedPage(position, pageSize, () -> loadFeedPage(position, pageSize));
+        return new CursorPageDTO<>(postCache.getPosts(page.getPostIds(), findUserId(userEmail)), page.getNextCursor());
     }
 
-    public List<Comment> getCommentsByPostId(Long postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
-        return post.getComments();
+    private PostCache.FeedPage loadFeedPage(String cursor, int pageSize) {
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Object[]> rows;
+        if (cursor == null) {
+            rows = postRepository.findFeedKeys(pageable);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            rows = postRepository.findFeedKeysAfter(position.getCreatedAt(), position.getId(), pageable);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Object[] last = rows.get(pageSize - 1);
+            nextCursor = new KeysetCursor((LocalDateTime) last[0], (Long) last[1]).encode();
+        }
+        List<Long> postIds = rows.stream().map(row -> (Long) row[1]).collect(Collectors.toList());
+        return new PostCache.FeedPage(postIds, nextCursor);
     }
 
-    @Transactional
-    public Post createPost(String email, String content, MultipartFile[] mediaFiles) {
+    public CursorPageDTO<PostDTO> findTimeline(String userEmail, String cursor, int limit) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("User not found with email: " + userEmail));
+        return timelineService.getTimeline(user.getId(), cursor, limit);
+    }
+
+    public List<PostDTO> findTrending(String userEmail, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_FEED_LIMIT));
+        return postCache.getPosts(trendingService.getTrendingPostIds(size), findUserId(userEmail));
+    }
+
+    public PostDTO findPostById(Long id, String userEmail) {
+        List<PostDTO> posts = postCache.getPosts(List.of(id), findUserId(userEmail));
+        if (posts.isEmpty()) {
+            throw new RuntimeException("Post not found with ID: " + id);
+        }
+        return posts.get(0);
+    }
+
+    public PostCreatedDTO createPost(String email, String content, MultipartFile[] mediaFiles, List<Long> uploadIds) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        
+
+        // Files are stored in parallel before the transaction starts, so no connection is held while bytes move
+        List<CompletableFuture<StoredFile>> uploads = new ArrayList<>();
+        List<MultipartFile> uploadedFiles = new ArrayList<>();
+        if (mediaFiles != null) {
+            for (MultipartFile file : mediaFiles) {
+                if (file.isEmpty()) {
+                    continue;
+                }
+                uploadedFiles.add(file);
+                uploads.add(CompletableFuture.supplyAsync(() -> fileStorageService.store(file), mediaUploadExecutor));
+            }
+        }
+
+        List<StoredFile> stored = new ArrayList<>();
+        List<FailedUploadDTO> failedUploads = new ArrayList<>();
+        for (int i = 0; i < uploads.size(); i++) {
+            try {
+                stored.add(uploads.get(i).join());
+            } catch (CompletionException e) {
+                String filename = uploadedFiles.get(i).getOriginalFilename();
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.warn("Failed to store media file {}", filename, cause);
+                failedUploads.add(new FailedUploadDTO(filename, cause.getMessage()));
+            }
+        }
+
+        Post savedPost;
+        try {
+            savedPost = new TransactionTemplate(transactionManager).execute(status -> persistPost(user, content, stored, uploadIds));
+        } catch (RuntimeException e) {
+            stored.forEach(fileStorageService::discard);
+            throw e;
+        }
+        return new PostCreatedDTO(savedPost, failedUploads);
+    }
+
+    private Post persistPost(User user, String content, List<StoredFile> media, List<Long> uploadIds) {
         Post post = new Post();
         post.setContent(content);
         post.setUser(user);
         post.setCreatedAt(LocalDateTime.now());
         post.setLikes(0);
-        
-        // Initialize media collection if null
-        if (post.getMediaFiles() == null) {
-            post.setMediaFiles(new ArrayList<>());
-        }
-        
-        // Save post first to get ID
+
+        // IDENTITY ids insert the post immediately, and Hibernate cannot batch the media rows; JDBC can
         Post savedPost = postRepository.save(post);
-        
-        // Process media files if any
-        if (mediaFiles != null && mediaFiles.length > 0) {
-            for (MultipartFile file : mediaFiles) {
-                try {
-                    // Skip empty files
-                    if (file.isEmpty()) {
-                        continue;
-                    }
-                    
-                    // Upload the file and get URL
-                    String url = fileStorageService.uploadFile(file);
-                    
-                    // Create media entity
-                    Media media = new Media();
-                    media.setUrl(url);
-                    media.setType(file.getContentType().startsWith("image") ? "image" : "video");
-                    media.setPost(savedPost);
-                    
-                    // Save media entity directly
-                    mediaRepository.save(media);
-                    
-                    // Add to post's collection for return value
-                    savedPost.getMediaFiles().add(media);
-                    
-                    System.out.println("Media saved with URL: " + url);
-                } catch (Exception e) {
-                    System.err.println("Error processing media file: " + e.getMessage());
-                    e.printStackTrace();
-                }
+        List<Object[]> rows = media.stream()
+                .map(file -> new Object[]{
+                    fileStorageService.urlOf(file.getFilename()),
+                    file.getContentType() != null && file.getContentType().startsWith("image") ? "image" : "video",
+                    savedPost.getId()
+                })
+                .collect(Collectors.toList());
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO media (url, type, post_id) VALUES (?, ?, ?)", rows);
+        }
+        // Files sent earlier through /api/uploads are already stored and counted; they only need the post
+        if (uploadIds != null && !uploadIds.isEmpty()) {
+            Set<Long> ids = new HashSet<>(uploadIds);
+            if (mediaRepository.attachUploads(ids, user.getId(), savedPost.getId()) != ids.size()) {
+                throw new RuntimeException("Uploads not found or already used: " + ids);
             }
         }
-        notificationService.createNotification(post.getUser(), "You created a new post!");
+        fileStorageService.retain(media);
+        mediaVariantService.scheduleVariants(media);
+
+        notificationService.createNotification(user, "You created a new post!");
+        timelineService.publish(user.getId(), savedPost.getId(), savedPost.getCreatedAt());
+        postCache.evictFeedHead();
+        versionStamps.postChanged(savedPost.getId());
         return savedPost;
     }
 
+    @Transactional
     public Map<String, Object> likePost(Long postId, String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
 
+        // The database decides whether this is a like or an unlike; the index may be stale or raced by a double tap
         boolean liked;
-        if (post.getLikedUsers().contains(user)) {
-            post.getLikedUsers().remove(user);
-            post.setLikes(post.getLikes() - 1);
+        if (postRepository.deleteLike(postId, user.getId()) > 0) {
+            likeCounterService.decrement(postId);
+            likedPostIndex.recordUnlike(user.getId(), postId);
+            trendingService.recordUnlike(postId);
             liked = false;
+        } else if (postRepository.insertLike(postId, user.getId()) == 0) {
+            // A concurrent request liked it first; only the index may need to catch up
+            likedPostIndex.recordLike(user.getId(), postId);
+            liked = true;
         } else {
-            post.getLikedUsers().add(user);
-            post.setLikes(post.getLikes() + 1);
+            likeCounterService.increment(postId);
+            likedPostIndex.recordLike(user.getId(), postId);
+            trendingService.recordLike(postId);
             liked = true;
-            notificationService.createNotification(post.getUser(), user.getName() + " liked your post!");
+            notificationService.createNotification(post.getUser(), Notification.Type.LIKE, postId, user);
         }
-
-        postRepository.save(post);
+        postCache.evictPost(postId);
+        versionStamps.postChanged(postId);
 
         Map<String, Object> result = new HashMap<>();
         result.put("liked", liked);
-        result.put("likeCount", post.getLikes());
+        result.put("likeCount", likeCounterService.currentLikes(postId, post.getLikes()));
         return result;
     }
 
 
+    @Transactional
     public void deletePost(Long postId, String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -203,40 +279,68 @@ public class PostService {
         if (!post.getUser().getId().equals(user.getId())) {
             throw new RuntimeException("Unauthorized");
         }
+        List<String> mediaFilenames = post.getMediaFiles().stream()
+                .map(media -> FileStorageService.filenameOf(media.getUrl()))
+                .collect(Collectors.toList());
         postRepository.delete(post);
+        fileStorageService.release(mediaFilenames);
+        postCache.evictDeletedPost(postId);
+        versionStamps.postChanged(postId);
+        trendingService.remove(postId);
     }
 
     public Post updatePost(Long postId, String userEmail, String newContent, MultipartFile[] mediaFiles) {
-        Post post = postRepository.findById(postId)
+        Post existing = postRepository.findById(postId)
             .orElseThrow(() -> new RuntimeException("Post not found"));
-    
-        if (!post.getUser().getEmail().equals(userEmail)) {
+        if (!existing.getUser().getEmail().equals(userEmail)) {
             throw new RuntimeException("Unauthorized to update this post");
         }
-    
+
+        // As in createPost, files are stored before the transaction and counted in it, after the save
+        List<StoredFile> stored = new ArrayList<>();
+        try {
+            if (mediaFiles != null) {
+                for (MultipartFile file : mediaFiles) {
+                    stored.add(fileStorageService.store(file));
+                }
+            }
+            return new TransactionTemplate(transactionManager).execute(status -> replacePost(postId, newContent, stored));
+        } catch (RuntimeException e) {
+            stored.forEach(fileStorageService::discard);
+            throw e;
+        }
+    }
+
+    private Post replacePost(Long postId, String newContent, List<StoredFile> media) {
+        Post post = postRepository.findById(postId)
+            .orElseThrow(() -> new RuntimeException("Post not found"));
         if (newContent != null) {
             post.setContent(newContent);
         }
-    
-        if (mediaFiles != null && mediaFiles.length > 0) {
-            // Optional: delete old media
+
+        List<String> replacedFilenames = new ArrayList<>();
+        if (!media.isEmpty()) {
+            post.getMediaFiles().forEach(old -> replacedFilenames.add(FileStorageService.filenameOf(old.getUrl())));
             post.getMediaFiles().clear();
-    
-            for (MultipartFile file : mediaFiles) {
-                String url = fileStorageService.uploadFile(file); // Upload file and get URL
-                Media media = new Media();
-                media.setUrl(url);
-                media.setType(file.getContentType().startsWith("image") ? "image" : "video");
-                media.setPost(post);
-                mediaRepository.save(media); // Save media entity
-                post.addMedia(media);
+            for (StoredFile file : media) {
+                Media created = new Media();
+                created.setUrl(fileStorageService.urlOf(file.getFilename()));
+                created.setType(file.getContentType() != null && file.getContentType().startsWith("image") ? "image" : "video");
+                created.setPost(post);
+                mediaRepository.save(created);
+                post.addMedia(created);
             }
         }
-    
-        return postRepository.save(post);
+
+        Post savedPost = postRepository.save(post);
+        fileStorageService.retain(media);
+        fileStorageService.release(replacedFilenames);
+        mediaVariantService.scheduleVariants(media);
+        postCache.evictPost(postId);
+        versionStamps.postChanged(postId);
+        return savedPost;
     }
-    
-   
+
     @Transactional
     public SharedPost sharePost(Long postId, String userEmail, String shareComment) {
         // Find the user sharing the post
@@ -256,59 +360,19 @@ public class PostService {
         
         // Save the shared post
         SharedPost savedSharedPost = sharedPostRepository.save(sharedPost);
+        timelineService.publish(user.getId(), post.getId(), savedSharedPost.getSharedAt());
+        trendingService.recordShare(postId);
+        postCache.evictPost(postId);
         
         // Create notification for the original post author
-        notificationService.createNotification(
-            post.getUser(), 
-            user.getName() + " shared your post!"
-        );
+        notificationService.createNotification(post.getUser(), Notification.Type.SHARE, postId, user);
         
         return savedSharedPost;
     }
     
    
     public List<SharedPostDTO> getSharedPostsByUserId(Long userId) {
-        return sharedPostRepository.findByUserIdOrderBySharedAtDesc(userId)
-                .stream()
-                .map(sharedPost -> {
-                    Post originalPost = sharedPost.getOriginalPost();
-        
-                    // Convert comments to DTOs
-                    List<CommentDTO> commentDTOs = originalPost.getComments().stream()
-                            .map(comment -> new CommentDTO(
-                                comment.getId(),
-                                comment.getContent(),
-                                comment.getCreatedAt(),
-                                comment.getUser()
-                            ))
-                            .collect(Collectors.toList());
-                
-                    // Get media URLs
-                    List<String> mediaUrls = originalPost.getMediaFiles().stream()
-                            .map(Media::getUrl)
-                            .collect(Collectors.toList());
-                
-                    // Create PostDTO for original post
-                    PostDTO originalPostDTO = new PostDTO(
-                        originalPost.getId(),
-                        originalPost.getContent(),
-                        originalPost.getLikes(),
-                        originalPost.getCreatedAt(),
-                        originalPost.getLikedUsers().contains(sharedPost.getUser()), // Set isLiked
-                        originalPost.getUser(),
-                        commentDTOs,
-                        mediaUrls
-                    );
-                
-                    // Create the final SharedPostDTO
-                    return new SharedPostDTO(
-                        sharedPost.getId(),
-                        sharedPost.getSharedAt(),
-                        sharedPost.getShareComment(),
-                        sharedPost.getUser().getName(),
-                        originalPostDTO
-                    );
-                }).collect(Collectors.toList());
+        return toSharedPostDTOs(sharedPostRepository.findWithPostsByUserId(userId), userId);
     }
     
     
@@ -316,10 +380,7 @@ public class PostService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + userEmail));
         
-        return sharedPostRepository.findByUserOrderBySharedAtDesc(user)
-                .stream()
-                .map(this::convertToSharedPostDTO)
-                .collect(Collectors.toList());
+        return toSharedPostDTOs(sharedPostRepository.findWithPostsByUserId(user.getId()), user.getId());
     }
     
   
@@ -340,45 +401,31 @@ public class PostService {
     }
     
   
-    private SharedPostDTO convertToSharedPostDTO(SharedPost sharedPost) {
-        Post originalPost = sharedPost.getOriginalPost();
-        
-        // Convert comments to DTOs
-        List<CommentDTO> commentDTOs = originalPost.getComments().stream()
-                .map(comment -> new CommentDTO(
-                    comment.getId(),
-                    comment.getContent(),
-                    comment.getCreatedAt(),
-                    comment.getUser()
-                ))
+    // isLiked on a shared post reflects the sharer, who is the same user for the whole list
+    private List<SharedPostDTO> toSharedPostDTOs(List<SharedPost> sharedPosts, Long sharerId) {
+        List<Post> originalPosts = sharedPosts.stream()
+                .map(SharedPost::getOriginalPost)
                 .collect(Collectors.toList());
-        
-        // Get media URLs
-        List<String> mediaUrls = originalPost.getMediaFiles().stream()
-                .map(Media::getUrl)
-                .collect(Collectors.toList());
-        
-        // Create PostDTO for original post
-        PostDTO originalPostDTO = new PostDTO(
-            originalPost.getId(),
-            originalPost.getContent(),
-            originalPost.getLikes(),
-            originalPost.getCreatedAt(),
-            originalPost.getLikedUsers().contains(sharedPost.getUser()),
-            originalPost.getUser(),
-            commentDTOs,
-            mediaUrls
-        );
-        
-        // Create the final SharedPostDTO
-        return new SharedPostDTO(
-            sharedPost.getId(),
-            sharedPost.getSharedAt(),
-            sharedPost.getShareComment(),
-            sharedPost.getUser().getName(),
-            originalPostDTO
-        );
+        List<PostDTO> originalPostDTOs = postAssembler.toDTOs(originalPosts, sharerId);
+
+        List<SharedPostDTO> result = new ArrayList<>();
+        for (int i = 0; i < sharedPosts.size(); i++) {
+            SharedPost sharedPost = sharedPosts.get(i);
+            result.add(new SharedPostDTO(
+                sharedPost.getId(),
+                sharedPost.getSharedAt(),
+                sharedPost.getShareComment(),
+                sharedPost.getUser().getName(),
+                originalPostDTOs.get(i)
+            ));
+        }
+        return result;
     }
 
-    
-}
\ No newline at end of file
+    private Long findUserId(String email) {
+        if (email == null) {
+            return null;
+        }
+        return userRepository.findByEmail(email).map(User::getId).orElse(null);
+    }
+}
@@ -0,0 +1,331 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.platform.dto.CursorPageDTO;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.util.KeysetCursor;
+import com.skillshare.platform.util.StripedStamps;
+import com.skillshare.platform.util.Transactions;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Personalised home timelines, built by fan-out on write.
+ * createPost and sharePost push the post id into the bounded in-memory timeline of every follower
+ * whose timeline is cached; other followers rebuild theirs from the database on their next read.
+ * Authors with at least timeline.celebrity-follower-threshold followers are not fanned out;
+ * their followers merge the celebrity's recent posts in at read time instead.
+ * A timeline keeps the newest timeline.capacity entries; a reader paging past the oldest of a full one
+ * reads the older entries from the database with the same keyset queries the rebuild uses.
+ * Up to timeline.max-users timelines are cached, evicted by Caffeine; a rebuild runs outside the cache
+ * and is only kept if no post was pushed to its user meanwhile, the way PostCache guards its loads.
+ */
+@Service
+public class TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int STAMP_STRIPES = 1024;
+    private static final LocalDateTime FAR_FUTURE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SharedPostRepository sharedPostRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Value("${timeline.capacity:500}")
+    private int capacity;
+
+    @Value("${timeline.max-users:20000}")
+    private int maxUsers;
+
+    @Value("${timeline.celebrity-follower-threshold:10000}")
+    private int celebrityThreshold;
+
+    private Cache<Long, Timeline> timelines;
+
+    private final StripedStamps stamps = new StripedStamps(STAMP_STRIPES);
+
+    private volatile Set<Long> celebrityIds = Collections.emptySet();
+
+    @PostConstruct
+    public void init() {
+        timelines = Caffeine.newBuilder().maximumSize(maxUsers).build();
+    }
+
+    @Scheduled(fixedDelayString = "${timeline.celebrity-refresh-ms:600000}")
+    public void refreshCelebrities() {
+        celebrityIds = new HashSet<>(userRepository.findUserIdsWithAtLeastFollowers(celebrityThreshold));
+        logger.debug("{} authors are above the fan-out threshold", celebrityIds.size());
+    }
+
+    /**
+     * Pushes a post (or a share of it, at the share time) to the author's followers once the
+     * surrounding transaction has committed.
+     */
+    public void publish(Long authorId, Long postId, LocalDateTime at) {
+        Transactions.afterCommit(() -> fanOut(authorId, postId, toKey(at)));
+    }
+
+    // A follow changes which authors feed the timeline, so it is rebuilt on the next read
+    public void invalidate(Long userId) {
+        stamps.bump(userId);
+        timelines.invalidate(userId);
+    }
+
+    public CursorPageDTO<PostDTO> getTimeline(Long userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        KeysetCursor position = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        long beforeKey = position != null ? toKey(position.getCreatedAt()) : Long.MAX_VALUE;
+        long beforeId = position != null ? position.getId() : Long.MAX_VALUE;
+
+        Timeline timeline = timelineFor(userId);
+        List<long[]> entries = new ArrayList<>(timeline.entriesBefore(beforeKey, beforeId, pageSize + 1));
+        long[] oldest = timeline.oldest();
+        boolean older = false;
+        if (entries.size() <= pageSize && timeline.isFull()) {
+            // Past what the timeline holds; anything older than its oldest entry may have been dropped
+            long[] from = Timeline.newestFirst(oldest, new long[]{beforeKey, beforeId}) > 0 ? oldest : new long[]{beforeKey, beforeId};
+            entries.addAll(loadBefore(userId, timeline, from[0], from[1], pageSize + 1));
+            older = true;
+        }
+
+        List<Long> celebrities = timeline.followedAmong(celebrityIds);
+        if (!celebrities.isEmpty()) {
+            List<Object[]> rows = postRepository.findKeysByAuthorsBefore(
+                    celebrities,
+                    position != null ? position.getCreatedAt() : FAR_FUTURE,
+                    position != null ? position.getId() : Long.MAX_VALUE,
+                    PageRequest.of(0, pageSize + 1));
+            for (Object[] row : rows) {
+                entries.add(new long[]{toKey((LocalDateTime) row[0]), (Long) row[1]});
+            }
+        }
+        if (older || !celebrities.isEmpty()) {
+            entries.sort(Timeline::newestFirst);
+        }
+
+        List<long[]> page = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int consumed = 0;
+        while (consumed < entries.size() && page.size() < pageSize) {
+            long[] entry = entries.get(consumed++);
+            if (seen.add(entry[1])) {
+                page.add(entry);
+            }
+        }
+        String nextCursor = null;
+        if (consumed < entries.size() && !page.isEmpty()) {
+            long[] last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(fromKey(last[0]), last[1]).encode();
+        }
+
+        List<Long> postIds = page.stream().map(entry -> entry[1]).collect(Collectors.toList());
+        // Posts deleted since they were pushed simply drop out of the page
+        return new CursorPageDTO<>(postCache.getPosts(postIds, userId), nextCursor);
+    }
+
+    private void fanOut(Long authorId, Long postId, long key) {
+        push(authorId, key, postId);
+        if (celebrityIds.contains(authorId)) {
+            return;
+        }
+        List<Long> followerIds = userRepository.findFollowerIds(authorId, PageRequest.of(0, celebrityThreshold));
+        if (followerIds.size() >= celebrityThreshold) {
+            // Crossed the threshold since the last refresh; readers start merging this author's posts now
+            Set<Long> updated = new HashSet<>(celebrityIds);
+            updated.add(authorId);
+            celebrityIds = updated;
+            return;
+        }
+        for (Long followerId : followerIds) {
+            push(followerId, key, postId);
+        }
+    }
+
+    private void push(Long userId, long key, long postId) {
+        // Bumped first, so a rebuild in flight that may have missed this post is not kept
+        stamps.bump(userId);
+        Timeline timeline = timelines.getIfPresent(userId);
+        if (timeline != null) {
+            timeline.add(key, postId);
+        }
+    }
+
+    private Timeline timelineFor(Long userId) {
+        Timeline timeline = timelines.getIfPresent(userId);
+        if (timeline != null) {
+            return timeline;
+        }
+        long stamp = stamps.get(userId);
+        timeline = rebuild(userId);
+        if (!stamps.unchanged(userId, stamp)) {
+            // Good enough for this read; the next one rebuilds with the pushed post
+            return timeline;
+        }
+        Timeline cached = timelines.asMap().putIfAbsent(userId, timeline);
+        if (cached != null) {
+            return cached;
+        }
+        // A push between the check and the put did not find it in the cache
+        if (!stamps.unchanged(userId, stamp)) {
+            timelines.asMap().remove(userId, timeline);
+        }
+        return timeline;
+    }
+
+    private Timeline rebuild(Long userId) {
+        Timeline timeline = new Timeline(capacity, userRepository.findFollowedUserIds(userId));
+        List<Long> authors = fannedOutAuthors(userId, timeline);
+
+        PageRequest newest = PageRequest.of(0, capacity);
+        for (Object[] row : postRepository.findKeysByAuthorsBefore(authors, FAR_FUTURE, Long.MAX_VALUE, newest)) {
+            timeline.add(toKey((LocalDateTime) row[0]), (Long) row[1]);
+        }
+        for (Object[] row : sharedPostRepository.findKeysBySharers(authors, newest)) {
+            timeline.add(toKey((LocalDateTime) row[0]), (Long) row[1]);
+        }
+        return timeline;
+    }
+
+    // Posts and shares older than the given position, from the authors a rebuild would load
+    private List<long[]> loadBefore(Long userId, Timeline timeline, long key, long postId, int limit) {
+        List<Long> authors = fannedOutAuthors(userId, timeline);
+        LocalDateTime at = fromKey(key);
+        PageRequest page = PageRequest.of(0, limit);
+        List<long[]> entries = new ArrayList<>();
+        for (Object[] row : postRepository.findKeysByAuthorsBefore(authors, at, postId, page)) {
+            entries.add(new long[]{toKey((LocalDateTime) row[0]), (Long) row[1]});
+        }
+        for (Object[] row : sharedPostRepository.findKeysBySharersBefore(authors, at, postId, page)) {
+            entries.add(new long[]{toKey((LocalDateTime) row[0]), (Long) row[1]});
+        }
+        return entries;
+    }
+
+    // Followed authors below the celebrity threshold, and the reader
+    private List<Long> fannedOutAuthors(Long userId, Timeline timeline) {
+        Set<Long> celebrities = celebrityIds;
+        List<Long> authors = Arrays.stream(timeline.followedUserIds)
+                .filter(id -> !celebrities.contains(id))
+                .boxed()
+                .collect(Collectors.toCollection(ArrayList::new));
+        authors.add(userId);
+        return authors;
+    }
+
+    // Microseconds since the epoch, the precision of the datetime(6) columns behind createdAt and sharedAt
+    private static long toKey(LocalDateTime at) {
+        return at.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + at.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromKey(long key) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000L), (int) Math.floorMod(key, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Newest-first, fixed-capacity list of (time key, post id) in two primitive arrays.
+     */
+    static final class Timeline {
+
+        private final long[] keys;
+        private final long[] postIds;
+        private final long[] followedUserIds;
+        private int size;
+
+        Timeline(int capacity, List<Long> followedUserIds) {
+            this.keys = new long[capacity];
+            this.postIds = new long[capacity];
+            this.followedUserIds = followedUserIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        synchronized void add(long key, long postId) {
+            int insertAt = 0;
+            for (int i = 0; i < size; i++) {
+                if (postIds[i] == postId) {
+                    return;
+                }
+                if (compare(keys[i], postIds[i], key, postId) < 0) {
+                    insertAt++;
+                }
+            }
+            if (insertAt >= keys.length) {
+                return;
+            }
+            int moved = Math.min(size, keys.length - 1) - insertAt;
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, moved);
+            System.arraycopy(postIds, insertAt, postIds, insertAt + 1, moved);
+            keys[insertAt] = key;
+            postIds[insertAt] = postId;
+            size = Math.min(size + 1, keys.length);
+        }
+
+        synchronized boolean isFull() {
+            return size == keys.length;
+        }
+
+        synchronized long[] oldest() {
+            return size == 0 ? null : new long[]{keys[size - 1], postIds[size - 1]};
+        }
+
+        synchronized List<long[]> entriesBefore(long key, long postId, int limit) {
+            List<long[]> result = new ArrayList<>();
+            for (int i = 0; i < size && result.size() < limit; i++) {
+                if (compare(keys[i], postIds[i], key, postId) > 0) {
+                    result.add(new long[]{keys[i], postIds[i]});
+                }
+            }
+            return result;
+        }
+
+        List<Long> followedAmong(Set<Long> userIds) {
+            List<Long> result = new ArrayList<>();
+            for (Long userId : userIds) {
+                if (Arrays.binarySearch(followedUserIds, userId) >= 0) {
+                    result.add(userId);
+                }
+            }
+            return result;
+        }
+
+        static int newestFirst(long[] a, long[] b) {
+            return compare(a[0], a[1], b[0], b[1]);
+        }
+
+        // Negative when (keyA, idA) sorts before (keyB, idB) in newest-first order
+        private static int compare(long keyA, long idA, long keyB, long idB) {
+            if (keyA != keyB) {
+                return keyA > keyB ? -1 : 1;
+            }
+            return Long.compare(idB, idA);
+        }
+    }
+}
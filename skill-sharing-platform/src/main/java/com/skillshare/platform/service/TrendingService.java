@@ -0,0 +1,227 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.util.Transactions;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Ranks posts by exponentially decayed engagement: every like, comment and share adds its weight,
+ * halved every trending.half-life-hours since it happened.
+ *
+ * Instead of decaying every score as time passes, each event is stored grown by
+ * exp(decay * (eventTime - reference)). All scores share the same reference, so their order
+ * never changes on its own and the top-K set only has to react to new events. The maintenance job
+ * drops posts whose engagement has decayed away and moves the reference forward before the
+ * growth factor gets large.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    // Rescale well before exp() loses precision on new events; 2^48 leaves plenty of headroom
+    private static final double RESCALE_AFTER_HALF_LIVES = 48;
+
+    private static final Comparator<Ranked> RANKING = Comparator
+            .comparingDouble((Ranked ranked) -> ranked.score).reversed()
+            .thenComparing(Comparator.comparingLong((Ranked ranked) -> ranked.postId).reversed());
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private SharedPostRepository sharedPostRepository;
+
+    @Value("${trending.size:100}")
+    private int size;
+
+    @Value("${trending.half-life-hours:6}")
+    private double halfLifeHours;
+
+    @Value("${trending.like-weight:1}")
+    private double likeWeight;
+
+    @Value("${trending.comment-weight:2}")
+    private double commentWeight;
+
+    @Value("${trending.share-weight:3}")
+    private double shareWeight;
+
+    // Posts whose current score falls below this stop being tracked
+    @Value("${trending.min-score:0.05}")
+    private double minScore;
+
+    @Value("${trending.rebuild-window-hours:168}")
+    private long rebuildWindowHours;
+
+    private double decayPerSecond;
+    private long referenceSecond;
+
+    // Guarded by this
+    private final HashMap<Long, Double> scores = new HashMap<>();
+    private final TreeSet<Ranked> top = new TreeSet<>(RANKING);
+
+    private volatile List<Long> trendingPostIds = List.of();
+
+    private static final class Ranked {
+        final long postId;
+        final double score;
+
+        Ranked(long postId, double score) {
+            this.postId = postId;
+            this.score = score;
+        }
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        decayPerSecond = Math.log(2) / (halfLifeHours * 3600);
+        referenceSecond = toSecond(LocalDateTime.now());
+        scores.clear();
+
+        // The join table has no timestamps, so a post's stored likes count from its creation
+        LocalDateTime since = LocalDateTime.now().minusHours(rebuildWindowHours);
+        for (Object[] row : postRepository.findLikeCountsCreatedSince(since)) {
+            int likes = ((Number) row[2]).intValue();
+            if (likes > 0) {
+                add((Long) row[0], likes * likeWeight, toSecond((LocalDateTime) row[1]));
+            }
+        }
+        for (Object[] row : commentRepository.findActivitySince(since)) {
+            add((Long) row[0], commentWeight, toSecond((LocalDateTime) row[1]));
+        }
+        for (Object[] row : sharedPostRepository.findActivitySince(since)) {
+            add((Long) row[0], shareWeight, toSecond((LocalDateTime) row[1]));
+        }
+
+        refill();
+        logger.info("Trending rebuilt from {} posts active in the last {}h", scores.size(), rebuildWindowHours);
+    }
+
+    public List<Long> getTrendingPostIds(int limit) {
+        List<Long> postIds = trendingPostIds;
+        return postIds.subList(0, Math.min(limit, postIds.size()));
+    }
+
+    public void recordLike(Long postId) {
+        record(postId, likeWeight);
+    }
+
+    // Takes the like back at today's weight, which may be more than it added; scores never go below zero
+    public void recordUnlike(Long postId) {
+        record(postId, -likeWeight);
+    }
+
+    public void recordComment(Long postId) {
+        record(postId, commentWeight);
+    }
+
+    public void recordShare(Long postId) {
+        record(postId, shareWeight);
+    }
+
+    public void remove(Long postId) {
+        Transactions.afterCommit(() -> {
+            synchronized (this) {
+                Double score = scores.remove(postId);
+                if (score != null && top.remove(new Ranked(postId, score))) {
+                    refill();
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${trending.maintenance-interval-ms:60000}")
+    public synchronized void maintain() {
+        long now = toSecond(LocalDateTime.now());
+        double decay = Math.exp(-decayPerSecond * (now - referenceSecond));
+        int tracked = scores.size();
+        scores.values().removeIf(score -> score * decay < minScore);
+
+        boolean rescale = (now - referenceSecond) * decayPerSecond > RESCALE_AFTER_HALF_LIVES * Math.log(2);
+        if (rescale) {
+            scores.replaceAll((postId, score) -> score * decay);
+            referenceSecond = now;
+        }
+        if (rescale || scores.size() < tracked) {
+            refill();
+        }
+    }
+
+    private void record(Long postId, double weight) {
+        long at = toSecond(LocalDateTime.now());
+        Transactions.afterCommit(() -> {
+            synchronized (this) {
+                Double previous = scores.get(postId);
+                boolean wasTop = previous != null && top.remove(new Ranked(postId, previous));
+                double score = add(postId, weight, at);
+                if (wasTop && weight < 0) {
+                    // Something outside the top may now outrank it
+                    refill();
+                } else if (offer(postId, score) || wasTop) {
+                    publish();
+                }
+            }
+        });
+    }
+
+    private double add(Long postId, double weight, long at) {
+        double score = scores.getOrDefault(postId, 0.0) + weight * Math.exp(decayPerSecond * (at - referenceSecond));
+        if (score <= 0) {
+            scores.remove(postId);
+            return 0;
+        }
+        scores.put(postId, score);
+        return score;
+    }
+
+    // Returns whether the post made it into the top
+    private boolean offer(long postId, double score) {
+        if (score <= 0) {
+            return false;
+        }
+        Ranked ranked = new Ranked(postId, score);
+        if (top.size() < size) {
+            return top.add(ranked);
+        }
+        if (RANKING.compare(ranked, top.last()) >= 0) {
+            return false;
+        }
+        top.add(ranked);
+        top.pollLast();
+        return true;
+    }
+
+    private void refill() {
+        top.clear();
+        scores.forEach(this::offer);
+        publish();
+    }
+
+    private void publish() {
+        trendingPostIds = top.stream().map(ranked -> ranked.postId).collect(Collectors.toUnmodifiableList());
+    }
+
+    private static long toSecond(LocalDateTime at) {
+        return at.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,87 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.platform.repository.NotificationCounterRepository;
+import com.skillshare.platform.util.StripedStamps;
+import com.skillshare.platform.util.Transactions;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unread notification counts for the badge. Each user's count is a row in notification_counters, moved by
+ * relative updates in the transactions that insert, read or delete notifications, so reading it is one
+ * lookup however many notifications the user has. Users without a row yet, such as everyone from before
+ * the table existed, are counted once on their first read.
+ *
+ * Counts are cached by email and evicted after a change commits. Like PostCache, a load that raced with a
+ * change is returned but not cached.
+ */
+@Service
+public class UnreadCounter {
+
+    private static final int STAMP_STRIPES = 1024;
+
+    @Autowired
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${cache.unread-counts.max-size:100000}")
+    private long maxSize;
+
+    private Cache<String, Long> counts;
+
+    private final StripedStamps stamps = new StripedStamps(STAMP_STRIPES);
+
+    @PostConstruct
+    public void init() {
+        counts = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public long unreadCount(String email) {
+        Long cached = counts.getIfPresent(email);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamps.get(email);
+        long count = load(email);
+        if (stamps.unchanged(email, stamp)) {
+            counts.put(email, count);
+        }
+        return count;
+    }
+
+    // Must run inside the transaction that changed the user's notifications
+    public void add(Long userId, String email, long delta) {
+        if (delta != 0) {
+            notificationCounterRepository.add(userId, delta);
+        }
+        changed(email);
+    }
+
+    public void changed(String email) {
+        Transactions.afterCommit(() -> {
+            stamps.bump(email);
+            counts.invalidate(email);
+        });
+    }
+
+    private long load(String email) {
+        return notificationCounterRepository.findUnreadByEmail(email).orElseGet(() -> {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(
+                        status -> notificationCounterRepository.initialize(email));
+            } catch (DataIntegrityViolationException e) {
+                // Another request counted this user first
+            }
+            return notificationCounterRepository.findUnreadByEmail(email).orElse(0L);
+        });
+    }
+}
@@ -1,30 +1,24 @@
 package com.skillshare.platform.service;
 
-import com.skillshare.platform.dto.CommentDTO;
 import com.skillshare.platform.dto.PostDTO;
 import com.skillshare.platform.dto.UserDTO;
-import com.skillshare.platform.model.Media;
 import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.PostRepository;
 import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.storage.StoredFile;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
-import org.springframework.data.domain.Sort;
 
 @Service
 public class UserService {
@@ -32,8 +26,26 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostAssembler postAssembler;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     public Optional<UserDTO> findById(Long id) {
         return userRepository.findById(id).map(user -> {
@@ -74,6 +86,9 @@ public class UserService {
             followUser.getFollowers().add(user);
             userRepository.save(user);
             userRepository.save(followUser);
+            timelineService.invalidate(userId);
+            versionStamps.userChanged(userId);
+            versionStamps.userChanged(followId);
         }
         // If already following, do nothing (idempotent operation)
     }
@@ -88,6 +103,9 @@ public class UserService {
         followUser.getFollowers().remove(user);
         userRepository.save(user);
         userRepository.save(followUser);
+        timelineService.invalidate(userId);
+        versionStamps.userChanged(userId);
+        versionStamps.userChanged(followId);
     }
 
     public boolean isFollowing(Long userId, Long followId, String email) {
@@ -103,81 +121,67 @@ public class UserService {
     }
 
     public List<PostDTO> getUserPosts(Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) return Collections.emptyList();
-    
-        return user.getPosts().stream()
-            .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
-            .map(post -> {
-                List<CommentDTO> commentDTOs = post.getComments().stream()
-                    .map(comment -> new CommentDTO(
-                        comment.getId(),
-                        comment.getContent(),
-                        comment.getCreatedAt(),
-                        comment.getUser()
-                    ))
-                    .collect(Collectors.toList());
-    
-                List<String> mediaUrls = post.getMediaFiles() != null
-                    ? post.getMediaFiles().stream()
-                        .map(Media::getUrl)
-                        .collect(Collectors.toList())
-                    : Collections.emptyList();
-    
-                return new PostDTO(
-                    post.getId(),
-                    post.getContent(),
-                    post.getLikes(),
-                    post.getCreatedAt(),
-                    post.getLikedUsers().contains(post.getUser()),
-                    post.getUser(),
-                    commentDTOs,
-                    mediaUrls
-                );
-            })
-            .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) return Collections.emptyList();
+
+        // isLiked here has always meant "liked by the profile owner"
+        return postAssembler.toDTOs(postRepository.findWithUserByUserId(userId), userId);
     }
 
     public UserDTO updateUser(Long userId, String name, String email, String bio, MultipartFile profilePhoto, String authEmail) {
         User authenticatedUser = userRepository.findByEmail(authEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + authEmail));
         
-        User userToUpdate = userRepository.findById(userId)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
-        
         if (!authenticatedUser.getId().equals(userId)) {
             throw new AccessDeniedException("You are not allowed to update this user's profile");
         }
-        
-        if (name != null && !name.trim().isEmpty()) {
-            userToUpdate.setName(name);
-        }
-        if (email != null && !email.trim().isEmpty()) {
-            userToUpdate.setEmail(email);
-        }
-        if (bio != null) {
-            userToUpdate.setBio(bio);
-        }
-        
+
+        // Stored before the transaction and counted in it, after the save; a failed save throws the file away
+        StoredFile photo = null;
         if (profilePhoto != null && !profilePhoto.isEmpty()) {
             try {
-                File dir = new File(uploadDir);
-                if (!dir.exists()) {
-                    dir.mkdirs();
-                }
-                
-                String fileName = UUID.randomUUID().toString() + "_" + profilePhoto.getOriginalFilename();
-                Path filePath = Paths.get(uploadDir, fileName);
-                
-                Files.write(filePath, profilePhoto.getBytes());
-                
-                userToUpdate.setProfilePhotoUrl("/media/" + fileName);
-            } catch (IOException e) {
+                photo = fileStorageService.store(profilePhoto);
+            } catch (RuntimeException e) {
                 throw new RuntimeException("Failed to upload profile photo", e);
             }
         }
-        
-        userToUpdate = userRepository.save(userToUpdate);
+
+        StoredFile newPhoto = photo;
+        User userToUpdate;
+        try {
+            userToUpdate = new TransactionTemplate(transactionManager).execute(status -> {
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
+                if (name != null && !name.trim().isEmpty()) {
+                    user.setName(name);
+                }
+                if (email != null && !email.trim().isEmpty()) {
+                    user.setEmail(email);
+                }
+                if (bio != null) {
+                    user.setBio(bio);
+                }
+                String previousPhotoUrl = user.getProfilePhotoUrl();
+                if (newPhoto != null) {
+                    user.setProfilePhotoUrl("/media/" + newPhoto.getFilename());
+                }
+
+                User saved = userRepository.save(user);
+                if (newPhoto != null) {
+                    fileStorageService.retain(List.of(newPhoto));
+                    if (previousPhotoUrl != null && previousPhotoUrl.startsWith("/media/")) {
+                        fileStorageService.release(List.of(FileStorageService.filenameOf(previousPhotoUrl)));
+                    }
+                }
+                postCache.evictAllPosts();
+                versionStamps.profileChanged(userId);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            if (newPhoto != null) {
+                fileStorageService.discard(newPhoto);
+            }
+            throw e;
+        }
         
         UserDTO dto = new UserDTO();
         dto.setId(userToUpdate.getId());
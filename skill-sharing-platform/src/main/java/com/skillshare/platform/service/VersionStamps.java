@@ -0,0 +1,81 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.util.Transactions;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory version counters behind the ETags of the post, profile and notification endpoints.
+ * A tag is built from counters alone, so answering If-None-Match never touches the database.
+ *
+ * Counters are striped: two keys sharing a stripe also share a bump, which can only cost an extra
+ * 200, never a stale 304. Tags start with the boot time, so tags from before a restart never match.
+ * Controllers must take the tag before loading data; bumps happen after commit.
+ */
+@Service
+public class VersionStamps {
+
+    private static final int STRIPES = 4096;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLongArray postVersions = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray userVersions = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray notificationVersions = new AtomicLongArray(STRIPES);
+
+    // Any change that shows up in the full post list
+    private final AtomicLong postListVersion = new AtomicLong();
+    // Any user's name or photo, which posts and comment previews embed
+    private final AtomicLong profileVersion = new AtomicLong();
+
+    // isLiked depends on the viewer, so their tags differ
+    public String postListTag(String viewerEmail) {
+        return tag("posts", viewerEmail.hashCode(), postListVersion.get(), profileVersion.get());
+    }
+
+    public String postTag(Long postId, String viewerEmail) {
+        return tag("post" + postId, viewerEmail.hashCode(), postVersions.get(stripe(postId.hashCode())), profileVersion.get());
+    }
+
+    public String userTag(Long userId) {
+        return tag("user" + userId, 0, userVersions.get(stripe(userId.hashCode())), 0);
+    }
+
+    public String notificationsTag(String email) {
+        return tag("notifications", email.hashCode(), notificationVersions.get(stripe(email.hashCode())), 0);
+    }
+
+    public void postChanged(Long postId) {
+        Transactions.afterCommit(() -> {
+            postVersions.incrementAndGet(stripe(postId.hashCode()));
+            postListVersion.incrementAndGet();
+        });
+    }
+
+    // Follower counts, bio or email
+    public void userChanged(Long userId) {
+        Transactions.afterCommit(() -> userVersions.incrementAndGet(stripe(userId.hashCode())));
+    }
+
+    public void profileChanged(Long userId) {
+        Transactions.afterCommit(() -> {
+            userVersions.incrementAndGet(stripe(userId.hashCode()));
+            profileVersion.incrementAndGet();
+            postListVersion.incrementAndGet();
+        });
+    }
+
+    public void notificationsChanged(String email) {
+        Transactions.afterCommit(() -> notificationVersions.incrementAndGet(stripe(email.hashCode())));
+    }
+
+    private String tag(String resource, int viewer, long version, long profiles) {
+        return "\"" + epoch + "-" + resource + "-" + Integer.toHexString(viewer) + "-" + version + "-" + profiles + "\"";
+    }
+
+    private static int stripe(int hash) {
+        return Math.floorMod(hash, STRIPES);
+    }
+}
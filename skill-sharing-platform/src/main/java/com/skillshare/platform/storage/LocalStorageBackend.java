@@ -0,0 +1,191 @@
+package com.skillshare.platform.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps files under upload-dir, fanned out into nested directories named after the leading characters
+ * of the file name (ab/cd/abcdef….jpg with the defaults), so no directory grows past a few thousand
+ * entries. Names are UUIDs or digests, so the prefixes spread evenly. Files written before the layout
+ * existed sit directly in upload-dir and are still found there until StorageLayoutMigration moves them.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    // 0 keeps everything in upload-dir itself
+    @Value("${file.layout.levels:2}")
+    private int levels;
+
+    @Value("${file.layout.width:2}")
+    private int width;
+
+    public LocalStorageBackend() {
+    }
+
+    public LocalStorageBackend(String uploadDir, int levels, int width) {
+        this.uploadDir = uploadDir;
+        this.levels = levels;
+        this.width = width;
+    }
+
+    // Staging files are created in the upload directory, so this is a rename
+    @Override
+    public void put(String name, Path source, String contentType) throws IOException {
+        Path target = shardedPath(name);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return Files.exists(shardedPath(name)) || Files.exists(flatPath(name));
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+        try {
+            return Files.newInputStream(shardedPath(name));
+        } catch (NoSuchFileException e) {
+            try {
+                return Files.newInputStream(flatPath(name));
+            } catch (NoSuchFileException movedMeanwhile) {
+                return Files.newInputStream(shardedPath(name));
+            }
+        }
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        Files.deleteIfExists(shardedPath(name));
+        Files.deleteIfExists(flatPath(name));
+    }
+
+    @Override
+    public List<StoredObject> list(String startAfter, int limit) throws IOException {
+        TreeMap<String, StoredObject> page = new TreeMap<>();
+        if (Files.isDirectory(root())) {
+            collect(root(), "", startAfter, limit, page);
+        }
+        return new ArrayList<>(page.values());
+    }
+
+    /**
+     * Walks the shard directories in name order, skipping those that can only hold names at or before
+     * startAfter and stopping once the page is full and later directories can only hold larger names.
+     * Files still flat in a directory are all looked at, since they do not follow the directory order.
+     */
+    private void collect(Path dir, String prefix, String startAfter, int limit, TreeMap<String, StoredObject> page) throws IOException {
+        TreeSet<String> subdirectories = new TreeSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".")) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                if (attributes.isDirectory()) {
+                    subdirectories.add(name);
+                } else if (attributes.isRegularFile() && (startAfter == null || name.compareTo(startAfter) > 0)) {
+                    page.put(name, new StoredObject(name, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                    if (page.size() > limit) {
+                        page.pollLastEntry();
+                    }
+                }
+            }
+        }
+        for (String subdirectory : subdirectories) {
+            String shard = prefix + subdirectory;
+            if (startAfter != null && shard.compareTo(startAfter.substring(0, Math.min(shard.length(), startAfter.length()))) < 0) {
+                continue;
+            }
+            if (page.size() >= limit && shard.compareTo(page.lastKey()) > 0) {
+                break;
+            }
+            collect(dir.resolve(subdirectory), shard, startAfter, limit, page);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String name) {
+        Path sharded = shardedPath(name);
+        if (Files.exists(sharded)) {
+            return Optional.of(sharded);
+        }
+        Path flat = flatPath(name);
+        // A flat file missing here may just have been migrated
+        return Optional.of(Files.exists(flat) ? flat : sharded);
+    }
+
+    @Override
+    public String publicUrl(String name) {
+        return "/media/" + name;
+    }
+
+    /**
+     * Moves up to limit files from the top of upload-dir into their shard directories and returns how
+     * many it moved. Directories and dot files (uploads still being staged) are left alone.
+     */
+    public int migrateFlatFiles(int limit) throws IOException {
+        if (levels <= 0) {
+            return 0;
+        }
+        int moved = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root())) {
+            for (Path entry : entries) {
+                if (moved >= limit) {
+                    break;
+                }
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".") || !Files.isRegularFile(entry) || shardedPath(name).equals(entry)) {
+                    continue;
+                }
+                Path target = shardedPath(name);
+                Files.createDirectories(target.getParent());
+                Files.move(entry, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                moved++;
+            }
+        } catch (NoSuchFileException e) {
+            return moved;
+        }
+        return moved;
+    }
+
+    private Path shardedPath(String name) {
+        Path path = root();
+        if (name.length() <= levels * width) {
+            return path.resolve(name);
+        }
+        for (int level = 0; level < levels; level++) {
+            path = path.resolve(name.substring(level * width, (level + 1) * width));
+        }
+        return path.resolve(name);
+    }
+
+    private Path flatPath(String name) {
+        return root().resolve(name);
+    }
+
+    private Path root() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+}
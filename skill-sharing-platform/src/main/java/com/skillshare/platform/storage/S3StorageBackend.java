@@ -0,0 +1,138 @@
+package com.skillshare.platform.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps files in an S3 bucket through the async client from AwsConfig. Files above the multipart
+ * threshold are uploaded as parts in parallel by the client. file.s3.endpoint and
+ * file.s3.path-style-access point it at an S3-compatible stand-in such as MinIO or LocalStack.
+ *
+ * Every call joins its future, so the calling thread blocks until S3 answers: StorageBackend is a
+ * blocking interface, and its callers already run on upload or request threads. The async client
+ * is used for its parallel multipart uploads, not to free the caller.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    @Autowired
+    private S3AsyncClient s3AsyncClient;
+
+    @Value("${aws.s3.bucket}")
+    private String bucket;
+
+    @Value("${file.s3.prefix:media/}")
+    private String prefix;
+
+    // Defaults to the bucket's virtual-hosted URL; set it for a CDN or a local stand-in
+    @Value("${file.s3.public-base-url:}")
+    private String publicBaseUrl;
+
+    @Value("${aws.region}")
+    private String region;
+
+    @Override
+    public void put(String name, Path source, String contentType) throws IOException {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(prefix + name)
+                .contentType(contentType)
+                .cacheControl("public, max-age=31536000, immutable")
+                .build();
+        try {
+            s3AsyncClient.putObject(request, AsyncRequestBody.fromFile(source)).join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to upload " + name + " to S3", e.getCause());
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public boolean exists(String name) throws IOException {
+        try {
+            s3AsyncClient.headObject(HeadObjectRequest.builder().bucket(bucket).key(prefix + name).build()).join();
+            return true;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof NoSuchKeyException
+                    || (e.getCause() instanceof S3Exception s3 && s3.statusCode() == 404)) {
+                return false;
+            }
+            throw new IOException("Failed to look up " + name + " in S3", e.getCause());
+        }
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+        GetObjectRequest request = GetObjectRequest.builder().bucket(bucket).key(prefix + name).build();
+        try {
+            return s3AsyncClient.getObject(request, AsyncResponseTransformer.toBlockingInputStream()).join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to read " + name + " from S3", e.getCause());
+        }
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        try {
+            s3AsyncClient.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(prefix + name).build()).join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to delete " + name + " from S3", e.getCause());
+        }
+    }
+
+    // S3 already lists keys in name order, which is what startAfter relies on
+    @Override
+    public List<StoredObject> list(String startAfter, int limit) throws IOException {
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .maxKeys(limit);
+        if (startAfter != null) {
+            request.startAfter(prefix + startAfter);
+        }
+        try {
+            return s3AsyncClient.listObjectsV2(request.build()).join().contents().stream()
+                    .map(object -> new StoredObject(object.key().substring(prefix.length()), object.size(), object.lastModified()))
+                    .filter(object -> !object.getName().isEmpty())
+                    .collect(Collectors.toList());
+        } catch (CompletionException e) {
+            throw new IOException("Failed to list S3 objects", e.getCause());
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String name) {
+        return Optional.empty();
+    }
+
+    @Override
+    public String publicUrl(String name) {
+        String base = publicBaseUrl.isBlank()
+                ? "https://" + bucket + ".s3." + region + ".amazonaws.com"
+                : publicBaseUrl;
+        return base + "/" + prefix + name;
+    }
+}
@@ -0,0 +1,32 @@
+package com.skillshare.platform.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where stored files live. Names are flat, write-once and chosen by FileStorageService; backends only
+ * move bytes. Selected with file.storage.backend (local or s3).
+ */
+public interface StorageBackend {
+
+    // Takes ownership of a complete local file and publishes it under name; the source is gone afterwards
+    void put(String name, Path source, String contentType) throws IOException;
+
+    boolean exists(String name) throws IOException;
+
+    InputStream open(String name) throws IOException;
+
+    void delete(String name) throws IOException;
+
+    // Up to limit stored files in name order, starting after the given name (null for the beginning)
+    List<StoredObject> list(String startAfter, int limit) throws IOException;
+
+    // The file on this node's disk, when the backend keeps one, so it can be served directly
+    Optional<Path> localPath(String name);
+
+    // Where clients can fetch the file when it is not on local disk
+    String publicUrl(String name);
+}
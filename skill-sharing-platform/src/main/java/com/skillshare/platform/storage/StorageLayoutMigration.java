@@ -0,0 +1,53 @@
+package com.skillshare.platform.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Moves files left flat in upload-dir by older versions into the sharded layout, a batch at a time
+ * while the application keeps serving. Nothing needs rewriting in the database because URLs only
+ * carry the file name; the backend looks in both places until a file has moved.
+ */
+@Component
+@ConditionalOnProperty(name = "file.layout.migration.enabled", havingValue = "true")
+public class StorageLayoutMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageLayoutMigration.class);
+
+    // Absent when files are kept in S3
+    @Autowired(required = false)
+    private LocalStorageBackend localStorageBackend;
+
+    @Value("${file.layout.migration.batch-size:500}")
+    private int batchSize;
+
+    private volatile boolean finished;
+
+    private long total;
+
+    @Scheduled(fixedDelayString = "${file.layout.migration.interval-ms:1000}", initialDelayString = "${file.layout.migration.initial-delay-ms:30000}")
+    public void migrateBatch() {
+        if (finished || localStorageBackend == null) {
+            return;
+        }
+        try {
+            int moved = localStorageBackend.migrateFlatFiles(batchSize);
+            total += moved;
+            if (moved < batchSize) {
+                finished = true;
+                logger.info("Upload directory layout migration finished, {} files moved", total);
+            } else {
+                logger.debug("Moved {} files into the sharded layout so far", total);
+            }
+        } catch (IOException e) {
+            logger.warn("Upload directory layout migration failed, will retry", e);
+        }
+    }
+}
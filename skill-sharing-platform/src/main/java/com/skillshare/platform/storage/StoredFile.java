@@ -0,0 +1,16 @@
+package com.skillshare.platform.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A file written by FileStorageService, measured and hashed while it was copied
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredFile {
+    private String filename; // name inside the upload directory, served under /media/
+    private long size;
+    private String sha256; // lowercase hex
+    private String contentType;
+}
@@ -0,0 +1,17 @@
+package com.skillshare.platform.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One entry of a backend listing, enough to decide whether it can be reclaimed
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredObject {
+    private String name;
+    private long size;
+    private Instant lastModified;
+}
@@ -0,0 +1,149 @@
+package com.skillshare.platform.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, line-oriented log split into numbered segment files.
+ * Writers append to the open segment; a consumer calls rotate() to seal it, processes the sealed
+ * segments and deletes them once their records are safely stored elsewhere.
+ * Segments left behind by a crash are returned by sealedSegments() on the next start.
+ */
+public class SegmentedLog implements Closeable {
+
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final String prefix;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel current;
+    private Path currentPath;
+    private long nextSequence;
+
+    public SegmentedLog(Path directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+        try {
+            Files.createDirectories(directory);
+            nextSequence = listSegments().stream()
+                    .mapToLong(this::sequenceOf)
+                    .max()
+                    .orElse(0) + 1;
+            openNextSegment();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open log in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    public void append(String record) {
+        ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        lock.readLock().lock();
+        try {
+            // FileChannel writes are atomic with respect to each other, so appends only share the read lock
+            while (buffer.hasRemaining()) {
+                current.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append to " + currentPath + ": " + e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Seals the open segment and starts a new one. Returns every sealed segment, oldest first.
+     */
+    public List<Path> rotate() {
+        lock.writeLock().lock();
+        try {
+            current.force(false);
+            current.close();
+            openNextSegment();
+            return sealedSegments();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to rotate log in " + directory + ": " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Path> sealedSegments() {
+        try {
+            return listSegments().stream()
+                    .filter(segment -> !segment.equals(currentPath))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list log segments in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static List<String> readRecords(List<Path> segments) {
+        List<String> records = new ArrayList<>();
+        for (Path segment : segments) {
+            try (Stream<String> lines = Files.lines(segment, StandardCharsets.UTF_8)) {
+                // A crash can leave the last line torn; callers must tolerate records they cannot parse
+                lines.filter(line -> !line.isBlank()).forEach(records::add);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read log segment " + segment + ": " + e.getMessage(), e);
+            }
+        }
+        return records;
+    }
+
+    public void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to delete log segment " + segment + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            current.force(false);
+            current.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close " + currentPath + ": " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        currentPath = directory.resolve(String.format("%s-%020d%s", prefix, nextSequence++, SUFFIX));
+        current = FileChannel.open(currentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix + "-") && name.endsWith(SUFFIX);
+                    })
+                    .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length() + 1, name.length() - SUFFIX.length()));
+    }
+}
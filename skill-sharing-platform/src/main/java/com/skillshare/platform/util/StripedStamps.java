@@ -0,0 +1,40 @@
+package com.skillshare.platform.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Guards a cache against storing a value loaded before a concurrent change committed. A load takes the
+ * key's stamp before reading the database and only stores its result if the stamp is unchanged
+ * afterwards; writers bump the stamp after commit, together with the eviction. Keys sharing a stripe
+ * share bumps, which can only cost a skipped store, never a stale entry.
+ */
+public final class StripedStamps {
+
+    private final AtomicLongArray stamps;
+
+    public StripedStamps(int stripes) {
+        this.stamps = new AtomicLongArray(stripes);
+    }
+
+    public long get(Object key) {
+        return stamps.get(stripe(key));
+    }
+
+    public boolean unchanged(Object key, long stamp) {
+        return stamps.get(stripe(key)) == stamp;
+    }
+
+    public void bump(Object key) {
+        stamps.incrementAndGet(stripe(key));
+    }
+
+    public void bumpAll() {
+        for (int i = 0; i < stamps.length(); i++) {
+            stamps.incrementAndGet(i);
+        }
+    }
+
+    private int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), stamps.length());
+    }
+}
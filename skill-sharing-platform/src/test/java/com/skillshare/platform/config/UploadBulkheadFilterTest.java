@@ -0,0 +1,57 @@
+package com.skillshare.platform.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UploadBulkheadFilterTest {
+
+    @Test
+    void rejectsUploadsBeyondTheBudgetButLetsOtherRequestsThrough() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UploadBulkheadFilter filter = new UploadBulkheadFilter(registry, 1, 1, 50, 5);
+        CountDownLatch uploading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slowUpload = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest("POST", "/api/posts/posts"), new MockHttpServletResponse(), (request, response) -> {
+                    uploading.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return null;
+            });
+            uploading.await();
+
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("PATCH", "/api/users/7"), rejected, (request, response) -> { });
+            assertEquals(503, rejected.getStatus());
+            assertEquals("5", rejected.getHeader("Retry-After"));
+
+            MockHttpServletResponse read = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/posts/feed"), read, (request, response) -> { });
+            assertEquals(200, read.getStatus());
+            assertEquals(1.0, registry.get("uploads.bulkhead.active").gauge().value());
+
+            finish.countDown();
+            slowUpload.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0.0, registry.get("uploads.bulkhead.active").gauge().value());
+        assertEquals(1.0, registry.get("uploads.bulkhead.rejected").tag("reason", "timeout").counter().count());
+    }
+}
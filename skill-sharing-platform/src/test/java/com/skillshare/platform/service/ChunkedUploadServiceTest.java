@@ -0,0 +1,255 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.UploadSessionDTO;
+import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.UploadSessionRepository;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.storage.LocalStorageBackend;
+import com.skillshare.platform.storage.StoredFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Completing claims the session in its own transaction, so the test must not wrap everything in one
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChunkedUploadServiceTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final int CHUNK_BYTES = 4;
+
+    @TempDir
+    Path storeDir;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private FileStorageService fileStorageService;
+    private ChunkedUploadService uploads;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = spy(new FileStorageService());
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", storeDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "baseUrl", "http://localhost:8081/media");
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", new LocalStorageBackend(storeDir.toString(), 0, 0));
+        // Counting uses MySQL's upsert; what matters here is whether it is called
+        doNothing().when(fileStorageService).retain(anyCollection());
+
+        uploads = new ChunkedUploadService();
+        ReflectionTestUtils.setField(uploads, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(uploads, "userRepository", userRepository);
+        ReflectionTestUtils.setField(uploads, "mediaRepository", mediaRepository);
+        ReflectionTestUtils.setField(uploads, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(uploads, "mediaVariantService", mock(MediaVariantService.class));
+        ReflectionTestUtils.setField(uploads, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(uploads, "maxFileBytes", 1024L);
+        ReflectionTestUtils.setField(uploads, "maxChunkBytes", (long) CHUNK_BYTES);
+        ReflectionTestUtils.setField(uploads, "sessionTtl", Duration.ofHours(24));
+    }
+
+    @Test
+    void resumesFromReceivedBytes() throws Exception {
+        String email = newUser().getEmail();
+        String id = uploads.start(email, "clip.mp4", "video/mp4", CONTENT.length).getId();
+        uploads.writeChunk(email, id, 0, chunk(0, 4));
+
+        // The connection dropped; the client asks where to carry on
+        UploadSessionDTO session = uploads.getSession(email, id);
+        assertEquals(4, session.getReceivedBytes());
+        uploads.writeChunk(email, id, session.getReceivedBytes(), chunk(4, 8));
+        uploads.writeChunk(email, id, 8, chunk(8, 10));
+
+        UploadSessionDTO completed = uploads.complete(email, id);
+
+        assertNotNull(completed.getMediaId());
+        assertArrayEquals(CONTENT, Files.readAllBytes(storeDir.resolve(FileStorageService.filenameOf(completed.getUrl()))));
+        assertFalse(Files.exists(fileStorageService.uploadSessionFile(id)));
+    }
+
+    @Test
+    void rejectsChunkAtWrongOffset() throws Exception {
+        String email = newUser().getEmail();
+        String id = uploads.start(email, "clip.mp4", "video/mp4", CONTENT.length).getId();
+        uploads.writeChunk(email, id, 0, chunk(0, 4));
+
+        assertThrows(IllegalStateException.class, () -> uploads.writeChunk(email, id, 0, chunk(0, 4)));
+        assertThrows(IllegalStateException.class, () -> uploads.writeChunk(email, id, 8, chunk(8, 10)));
+        assertEquals(4, uploads.getSession(email, id).getReceivedBytes());
+    }
+
+    @Test
+    void rejectsOversizedChunk() throws Exception {
+        String email = newUser().getEmail();
+        String id = uploads.start(email, "clip.mp4", "video/mp4", CONTENT.length).getId();
+
+        assertThrows(IllegalArgumentException.class, () -> uploads.writeChunk(email, id, 0, chunk(0, CHUNK_BYTES + 1)));
+        assertEquals(0, uploads.getSession(email, id).getReceivedBytes());
+
+        // The rejected bytes are overwritten by the retry and cut off at completion
+        uploads.writeChunk(email, id, 0, chunk(0, 4));
+        uploads.writeChunk(email, id, 4, chunk(4, 8));
+        uploads.writeChunk(email, id, 8, chunk(8, 10));
+        UploadSessionDTO completed = uploads.complete(email, id);
+        assertArrayEquals(CONTENT, Files.readAllBytes(storeDir.resolve(FileStorageService.filenameOf(completed.getUrl()))));
+    }
+
+    @Test
+    void completingTwiceReturnsTheFirstResult() throws Exception {
+        User user = newUser();
+        String id = uploadAll(user.getEmail());
+
+        UploadSessionDTO first = uploads.complete(user.getEmail(), id);
+        UploadSessionDTO second = uploads.complete(user.getEmail(), id);
+
+        assertEquals(first.getMediaId(), second.getMediaId());
+        assertEquals(1, mediaCount(user));
+        verify(fileStorageService, times(1)).retain(anyCollection());
+    }
+
+    @Test
+    void completeThatLosesTheRaceDiscardsItsCopy() throws Exception {
+        User user = newUser();
+        String id = uploadAll(user.getEmail());
+
+        // Another request completes the same session while this one is storing the file
+        AtomicReference<Long> rivalMediaId = new AtomicReference<>();
+        AtomicReference<StoredFile> ours = new AtomicReference<>();
+        doAnswer(invocation -> {
+            StoredFile stored = (StoredFile) invocation.callRealMethod();
+            ours.set(stored);
+            Media rival = new Media();
+            rival.setUrl(fileStorageService.urlOf("rival.mp4"));
+            rival.setType("video");
+            rival.setUploader(user);
+            rivalMediaId.set(mediaRepository.save(rival).getId());
+            uploadSessionRepository.claimCompletion(id, rivalMediaId.get(), LocalDateTime.now());
+            return stored;
+        }).when(fileStorageService).storeStaged(any(Path.class), anyString(), anyString());
+
+        UploadSessionDTO completed = uploads.complete(user.getEmail(), id);
+
+        assertEquals(rivalMediaId.get(), completed.getMediaId());
+        assertEquals(1, mediaCount(user));
+        assertFalse(Files.exists(storeDir.resolve(ours.get().getFilename())));
+        verify(fileStorageService, times(0)).retain(anyCollection());
+    }
+
+    @Test
+    void uploadsAttachOnlyForTheirUploaderAndOnlyOnce() throws Exception {
+        User alice = newUser();
+        User bob = newUser();
+        String id = uploadAll(alice.getEmail());
+        Long mediaId = uploads.complete(alice.getEmail(), id).getMediaId();
+        PostService posts = postService();
+
+        RuntimeException stolen = assertThrows(RuntimeException.class,
+                () -> posts.createPost(bob.getEmail(), "Not mine", null, List.of(mediaId)));
+        assertEquals("Uploads not found or already used: [" + mediaId + "]", stolen.getMessage());
+        assertEquals(0, postCount(bob));
+
+        Long postId = posts.createPost(alice.getEmail(), "Mine", null, List.of(mediaId)).getPost().getId();
+        assertEquals(postId, jdbcTemplate.queryForObject("SELECT post_id FROM media WHERE id = ?", Long.class, mediaId));
+
+        assertThrows(RuntimeException.class,
+                () -> posts.createPost(alice.getEmail(), "Again", null, List.of(mediaId)));
+        assertEquals(1, postCount(alice));
+        assertEquals(postId, jdbcTemplate.queryForObject("SELECT post_id FROM media WHERE id = ?", Long.class, mediaId));
+    }
+
+    private PostService postService() {
+        PostService posts = new PostService();
+        ReflectionTestUtils.setField(posts, "postRepository", postRepository);
+        ReflectionTestUtils.setField(posts, "userRepository", userRepository);
+        ReflectionTestUtils.setField(posts, "mediaRepository", mediaRepository);
+        ReflectionTestUtils.setField(posts, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(posts, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(posts, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(posts, "notificationService", mock(NotificationService.class));
+        ReflectionTestUtils.setField(posts, "timelineService", mock(TimelineService.class));
+        ReflectionTestUtils.setField(posts, "postCache", mock(PostCache.class));
+        ReflectionTestUtils.setField(posts, "versionStamps", mock(VersionStamps.class));
+        ReflectionTestUtils.setField(posts, "mediaVariantService", mock(MediaVariantService.class));
+        return posts;
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private String uploadAll(String email) throws Exception {
+        String id = uploads.start(email, "clip.mp4", "video/mp4", CONTENT.length).getId();
+        for (int offset = 0; offset < CONTENT.length; offset += CHUNK_BYTES) {
+            uploads.writeChunk(email, id, offset, chunk(offset, Math.min(offset + CHUNK_BYTES, CONTENT.length)));
+        }
+        return id;
+    }
+
+    private ByteArrayInputStream chunk(int from, int to) {
+        if (to <= CONTENT.length) {
+            return new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, from, to));
+        }
+        return new ByteArrayInputStream(new byte[to - from]);
+    }
+
+    private int mediaCount(User user) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM media WHERE uploader_id = ?", Integer.class, user.getId());
+    }
+
+    private int postCount(User user) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts WHERE user_id = ?", Integer.class, user.getId());
+    }
+}
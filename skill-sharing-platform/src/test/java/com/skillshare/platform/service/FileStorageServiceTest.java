@@ -0,0 +1,72 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.storage.LocalStorageBackend;
+import com.skillshare.platform.storage.StoredFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void storesAFileLargerThanTheBufferWithItsSizeAndDigest() throws Exception {
+        FileStorageService storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(storage, "storageBackend", new LocalStorageBackend(uploadDir.toString(), 0, 0));
+
+        byte[] content = new byte[300_000];
+        new Random(7).nextBytes(content);
+        StoredFile stored = storage.store(new MockMultipartFile("file", "../../etc/my photo.png", "image/png", content));
+
+        assertTrue(stored.getFilename().endsWith("-my_photo.png"));
+        assertEquals(content.length, stored.getSize());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), stored.getSha256());
+        assertArrayEquals(content, Files.readAllBytes(uploadDir.resolve(stored.getFilename())));
+        // Only the finished file is left behind
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void contentAddressedModeStoresIdenticalUploadsOnce() throws Exception {
+        FileStorageService storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(storage, "storageBackend", new LocalStorageBackend(uploadDir.toString(), 0, 0));
+        ReflectionTestUtils.setField(storage, "contentAddressed", true);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(storage, "jdbcTemplate", jdbcTemplate);
+
+        byte[] content = "same screenshot".getBytes();
+        StoredFile first = storage.store(new MockMultipartFile("file", "a.PNG", "image/png", content));
+        StoredFile second = storage.store(new MockMultipartFile("file", "copy of a.png", "image/png", content));
+
+        assertEquals(first.getSha256() + ".png", first.getFilename());
+        assertEquals(first.getFilename(), second.getFilename());
+        // Each upload claims the blob, even the one that found it already stored
+        verify(jdbcTemplate, times(2)).update(anyString(), eq(first.getFilename()), eq((long) content.length));
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.skillshare.platform.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Likes per second on a single hot post with 64 concurrent likers, through the in-memory
+ * counter and the like log. Logs the measured rate; the assertions only check nothing is lost.
+ * Excluded from the default build; run with mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class LikeCounterBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounterBenchmarkTest.class);
+
+    private static final int THREADS = 64;
+    private static final int LIKES_PER_THREAD = 5_000;
+    private static final Long HOT_POST_ID = 42L;
+
+    @TempDir
+    Path logDir;
+
+    @Test
+    void likesOnOneHotPostFrom64Threads() throws Exception {
+        LikeCounterService counter = new LikeCounterService();
+        ReflectionTestUtils.setField(counter, "logDir", logDir.toString());
+        ReflectionTestUtils.setField(counter, "jdbcTemplate", mock(JdbcTemplate.class));
+        counter.open();
+        try {
+            run(counter);
+        } finally {
+            counter.close();
+        }
+    }
+
+    private void run(LikeCounterService counter) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < LIKES_PER_THREAD; i++) {
+                        counter.increment(HOT_POST_ID);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(2, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - began;
+        pool.shutdown();
+
+        long total = (long) THREADS * LIKES_PER_THREAD;
+        logger.info("{} likes on one post from {} threads in {} ms: {} likes/sec",
+                total, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(total / (elapsed / 1e9)));
+
+        assertEquals(total, counter.pendingDelta(HOT_POST_ID));
+        assertEquals(total, counter.currentLikes(HOT_POST_ID, 0));
+    }
+}
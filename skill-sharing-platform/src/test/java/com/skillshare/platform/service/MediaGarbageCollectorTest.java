@@ -0,0 +1,149 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.ProgressUpdate;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.storage.LocalStorageBackend;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class MediaGarbageCollectorTest {
+
+    private static final Duration GRACE_PERIOD = Duration.ofHours(24);
+
+    @TempDir
+    Path storeDir;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private FileStorageService fileStorageService;
+    private MediaGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", storeDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "baseUrl", "http://localhost:8081/media");
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", new LocalStorageBackend(storeDir.toString(), 0, 0));
+
+        collector = new MediaGarbageCollector();
+        ReflectionTestUtils.setField(collector, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(collector, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(collector, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(jdbcTemplate));
+        ReflectionTestUtils.setField(collector, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(collector, "enabled", true);
+        ReflectionTestUtils.setField(collector, "batchSize", 200);
+        ReflectionTestUtils.setField(collector, "gracePeriod", GRACE_PERIOD);
+        ReflectionTestUtils.setField(collector, "passInterval", Duration.ofHours(6));
+    }
+
+    @Test
+    void keepsFilesReferencedThroughEveryUrlForm() throws Exception {
+        String[] referenced = {"post.png", "variant.png", "photo.png", "legacy-photo.png", "attachment.pdf"};
+        for (String name : referenced) {
+            writeOldFile(name);
+        }
+        writeOldFile("orphan.png");
+
+        User user = new User();
+        user.setEmail("owner@example.com");
+        user.setProfilePhotoUrl(fileStorageService.publicUrl("photo.png"));
+        entityManager.persist(user);
+
+        Media media = new Media();
+        media.setUrl(fileStorageService.urlOf("post.png"));
+        media.setFeedUrl(fileStorageService.urlOf("variant.png"));
+        media.setType("image");
+        entityManager.persist(media);
+
+        User legacy = new User();
+        legacy.setEmail("legacy@example.com");
+        legacy.setProfilePhotoUrl("/profile-photos/legacy-photo.png");
+        entityManager.persist(legacy);
+
+        ProgressUpdate update = new ProgressUpdate();
+        update.setTitle("Week 1");
+        update.setTopic("Java");
+        update.setUser(user);
+        update.getAttachments().add("/media/attachment.pdf");
+        entityManager.persist(update);
+        entityManager.flush();
+
+        collector.sweep();
+
+        for (String name : referenced) {
+            assertTrue(Files.exists(storeDir.resolve(name)), name + " is referenced");
+        }
+        assertFalse(Files.exists(storeDir.resolve("orphan.png")));
+    }
+
+    @Test
+    void keepsFilesYoungerThanTheGracePeriod() throws Exception {
+        Files.writeString(storeDir.resolve("just-uploaded.png"), "bytes");
+        writeOldFile("orphan.png");
+
+        collector.sweep();
+
+        assertTrue(Files.exists(storeDir.resolve("just-uploaded.png")));
+        assertFalse(Files.exists(storeDir.resolve("orphan.png")));
+    }
+
+    @Test
+    void skipsBlobsThatAreCountedOrRecentlyTouched() throws Exception {
+        writeOldFile("counted.png");
+        writeOldFile("reused.png");
+        writeOldFile("released.png");
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(3);
+        insertBlob("counted.png", 1, longAgo);
+        // Found by a dedup lookup a moment ago; the post referencing it is not saved yet
+        insertBlob("reused.png", 0, LocalDateTime.now());
+        insertBlob("released.png", 0, longAgo);
+
+        collector.sweep();
+
+        assertTrue(Files.exists(storeDir.resolve("counted.png")));
+        assertTrue(Files.exists(storeDir.resolve("reused.png")));
+        assertFalse(Files.exists(storeDir.resolve("released.png")));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM media_blobs WHERE filename = 'released.png'", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM media_blobs", Integer.class));
+    }
+
+    private void writeOldFile(String name) throws Exception {
+        Path file = Files.writeString(storeDir.resolve(name), "bytes");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(GRACE_PERIOD).minus(Duration.ofHours(1))));
+    }
+
+    private void insertBlob(String filename, long refCount, LocalDateTime updatedAt) {
+        jdbcTemplate.update("INSERT INTO media_blobs (filename, size, ref_count, updated_at) VALUES (?, 5, ?, ?)",
+                filename, refCount, Timestamp.valueOf(updatedAt));
+    }
+}
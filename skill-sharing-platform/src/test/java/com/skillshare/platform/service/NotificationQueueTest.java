@@ -0,0 +1,305 @@
+package com.skillshare.platform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.platform.model.Notification;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.util.SegmentedLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+// Each insert commits on its own, as it does in production
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationQueueTest {
+
+    private static final long MISSING_USER_ID = Long.MAX_VALUE;
+
+    @TempDir
+    Path logDir;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private JdbcTemplate jdbc;
+    private NotificationQueue notificationQueue;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = spy(jdbcTemplate);
+        notificationQueue = new NotificationQueue();
+        ReflectionTestUtils.setField(notificationQueue, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(notificationQueue, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(notificationQueue, "versionStamps", mock(VersionStamps.class));
+        ReflectionTestUtils.setField(notificationQueue, "notificationStreams", mock(NotificationStreams.class));
+        ReflectionTestUtils.setField(notificationQueue, "unreadCounter", mock(UnreadCounter.class));
+        ReflectionTestUtils.setField(notificationQueue, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(notificationQueue, "capacity", 100);
+        ReflectionTestUtils.setField(notificationQueue, "batchSize", 500);
+        ReflectionTestUtils.setField(notificationQueue, "durability", "spill");
+        ReflectionTestUtils.setField(notificationQueue, "logDir", logDir.toString());
+        ReflectionTestUtils.setField(notificationQueue, "coalesceWindow", Duration.ofHours(24));
+        ReflectionTestUtils.setField(notificationQueue, "maxAttempts", 3);
+        ReflectionTestUtils.setField(notificationQueue, "retryBackoff", Duration.ZERO);
+
+        user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user = userRepository.save(user);
+        notificationQueue.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationQueue.close();
+    }
+
+    @Test
+    void deadLettersRowsThatCanNeverBeStoredWithoutHoldingBackTheRest() throws Exception {
+        notificationQueue.enqueue(user.getId(), user.getEmail(), "First");
+        // No such user, so this row can never be inserted
+        notificationQueue.enqueue(MISSING_USER_ID, "nobody@example.com", "Lost");
+        notificationQueue.enqueue(user.getId(), user.getEmail(), "Second");
+
+        notificationQueue.flush();
+
+        assertEquals(List.of("First", "Second"), messages());
+        List<String> deadLetters = SegmentedLog.readRecords(segmentsIn(logDir.resolve("dead-letter")));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"message\":\"Lost\""));
+        // Every segment behind the batch went with it
+        assertTrue(segmentsIn(logDir).stream().allMatch(this::isEmpty));
+    }
+
+    @Test
+    void keepsDrainingWhileAFailedBatchWaitsForItsRetry() throws Exception {
+        ReflectionTestUtils.setField(notificationQueue, "retryBackoff", Duration.ofHours(1));
+        doThrow(new DataAccessResourceFailureException("Database is down"))
+                .doCallRealMethod()
+                .when(jdbc).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        notificationQueue.enqueue(user.getId(), user.getEmail(), "Delayed");
+        notificationQueue.flush();
+
+        notificationQueue.enqueue(user.getId(), user.getEmail(), "Later");
+        notificationQueue.flush();
+        assertEquals(List.of("Later"), messages());
+        // Still on disk while it waits
+        assertTrue(SegmentedLog.readRecords(segmentsIn(logDir)).stream().anyMatch(record -> record.contains("Delayed")));
+
+        ReflectionTestUtils.setField(notificationQueue, "nextAttempt", Instant.MIN);
+        notificationQueue.flush();
+        assertEquals(List.of("Later", "Delayed"), messages());
+        assertTrue(segmentsIn(logDir).stream().allMatch(this::isEmpty));
+    }
+
+    @Test
+    void deadLettersRowsThatKeepFailing() throws Exception {
+        doThrow(new DataAccessResourceFailureException("Database is down"))
+                .when(jdbc).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        notificationQueue.enqueue(user.getId(), user.getEmail(), "Unlucky");
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            notificationQueue.flush();
+        }
+
+        assertEquals(1, SegmentedLog.readRecords(segmentsIn(logDir.resolve("dead-letter"))).size());
+        assertTrue(SegmentedLog.readRecords(segmentsIn(logDir)).isEmpty());
+    }
+
+    @Test
+    void keepsAnOverflowingNotificationWhoseDirectInsertFails() {
+        notificationQueue.close();
+        ReflectionTestUtils.setField(notificationQueue, "capacity", 1);
+        notificationQueue.open();
+        notificationQueue.enqueue(user.getId(), user.getEmail(), "Queued");
+        doThrow(new DataAccessResourceFailureException("Database is down"))
+                .doCallRealMethod()
+                .when(jdbc).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+
+        // The queue is full and the insert fails; the caller's action has committed and must not see it
+        notificationQueue.enqueue(user.getId(), user.getEmail(), "Overflow");
+        notificationQueue.flush();
+
+        assertEquals(List.of("Overflow", "Queued"), messages());
+    }
+
+    @Test
+    void replaysTheLogOnTheFirstFlushWhenStartupCannotInsert() throws Exception {
+        notificationQueue.close();
+        // Left behind by a crash before the flush
+        SegmentedLog crashed = new SegmentedLog(logDir, "notifications");
+        crashed.append(objectMapper.writeValueAsString(new NotificationQueue.PendingNotification(
+                user.getId(), user.getEmail(), "Before the crash", LocalDateTime.now(), null, null, null, null)));
+        crashed.close();
+        doThrow(new DataAccessResourceFailureException("Database is down"))
+                .doCallRealMethod()
+                .when(jdbc).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+
+        notificationQueue.open();
+        assertEquals(0, notificationCount());
+
+        notificationQueue.flush();
+        assertEquals(1, notificationCount());
+        assertTrue(segmentsIn(logDir).stream().allMatch(this::isEmpty));
+    }
+
+    @Test
+    void mergesActivityIntoTheUnreadRow() {
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 1L, "Ann");
+        notificationQueue.flush();
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 2L, "Bob");
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.COMMENT, 7L, 2L, "Bob");
+        notificationQueue.flush();
+
+        assertEquals(List.of("Bob and Ann liked your post!", "Bob commented on your post!"), messages());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT actor_count FROM notifications WHERE user_id = ? AND type = 'LIKE'", Integer.class, user.getId()));
+    }
+
+    @Test
+    void startsAFreshRowOnceTheOldOneIsRead() {
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 1L, "Ann");
+        notificationQueue.flush();
+        jdbcTemplate.update("UPDATE notifications SET is_read = true WHERE user_id = ?", user.getId());
+
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 2L, "Bob");
+        notificationQueue.flush();
+
+        assertEquals(List.of("Ann liked your post!", "Bob liked your post!"), messages());
+    }
+
+    @Test
+    void replaysTheBatchOntoARowChangedSinceItWasRead() {
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 1L, "Ann");
+        notificationQueue.flush();
+        // Another instance merges four more likes between this one's read and its update
+        beforeFirstMerge(() -> jdbcTemplate.update(
+                "UPDATE notifications SET actor_count = 5, latest_actors = ?, created_at = ? WHERE user_id = ?",
+                "[{\"id\":3,\"name\":\"Cid\"},{\"id\":1,\"name\":\"Ann\"}]", Timestamp.valueOf(LocalDateTime.now()), user.getId()));
+
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 2L, "Bob");
+        notificationQueue.flush();
+
+        assertEquals(List.of("Bob and 5 others liked your post!"), messages());
+    }
+
+    @Test
+    void insertsTheBatchAloneWhenTheRowWasReadSinceItWasRead() {
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 1L, "Ann");
+        notificationQueue.flush();
+        beforeFirstMerge(() -> jdbcTemplate.update("UPDATE notifications SET is_read = true WHERE user_id = ?", user.getId()));
+
+        notificationQueue.enqueueActivity(user.getId(), user.getEmail(), Notification.Type.LIKE, 7L, 2L, "Bob");
+        notificationQueue.flush();
+
+        // Ann's like stays with the row that was read instead of being counted again
+        assertEquals(List.of("Ann liked your post!", "Bob liked your post!"), messages());
+    }
+
+    @Test
+    void countsEachActorOnceAndKeepsTheLatestFirst() {
+        NotificationQueue.Row row = new NotificationQueue.Row();
+        NotificationQueue.addActor(row, new NotificationQueue.Actor(1L, "Ann"));
+        NotificationQueue.addActor(row, new NotificationQueue.Actor(2L, "Bob"));
+        NotificationQueue.addActor(row, new NotificationQueue.Actor(3L, "Cid"));
+        NotificationQueue.addActor(row, new NotificationQueue.Actor(4L, "Dee"));
+        // Unliked and liked again
+        NotificationQueue.addActor(row, new NotificationQueue.Actor(3L, "Cid"));
+
+        assertEquals(4, row.actorCount);
+        assertEquals(List.of("Cid", "Dee", "Bob"), row.latestActors.stream().map(NotificationQueue.Actor::getName).toList());
+    }
+
+    @Test
+    void namesTheLatestActorsInTheMessage() {
+        NotificationQueue.Row row = new NotificationQueue.Row();
+        row.type = Notification.Type.SHARE;
+        NotificationQueue.addActor(row, new NotificationQueue.Actor(1L, "Ann"));
+        assertEquals("Ann shared your post!", NotificationQueue.messageFor(row));
+
+        NotificationQueue.addActor(row, new NotificationQueue.Actor(2L, "Bob"));
+        assertEquals("Bob and Ann shared your post!", NotificationQueue.messageFor(row));
+
+        // Only the count of an older merge is known
+        row.latestActors.remove(1);
+        assertEquals("Bob and 1 other shared your post!", NotificationQueue.messageFor(row));
+
+        row.actorCount = 42;
+        assertEquals("Bob and 41 others shared your post!", NotificationQueue.messageFor(row));
+    }
+
+    private void beforeFirstMerge(Runnable interference) {
+        AtomicBoolean interfered = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (interfered.compareAndSet(false, true)) {
+                interference.run();
+            }
+            return invocation.callRealMethod();
+        }).when(jdbc).batchUpdate(startsWith("UPDATE notifications SET message"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private List<String> messages() {
+        return jdbcTemplate.queryForList("SELECT message FROM notifications WHERE user_id = ? ORDER BY id", String.class, user.getId());
+    }
+
+    private int notificationCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications WHERE user_id = ?", Integer.class, user.getId());
+    }
+
+    private List<Path> segmentsIn(Path directory) throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    private boolean isEmpty(Path file) {
+        try {
+            return Files.size(file) == 0;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.model.Comment;
+import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.PostRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "likes.log-dir=target/test-likes-log"
+})
+@Import({PostAssembler.class, LikedPostIndex.class, LikeCounterService.class})
+class PostAssemblerTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostAssembler postAssembler;
+
+    @Test
+    void buildsAPageOfPostsWithAFixedNumberOfStatements() {
+        User viewer = persistUser("viewer@example.com");
+        User[] authors = {persistUser("a@example.com"), persistUser("b@example.com"), persistUser("c@example.com")};
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            User author = authors[i % authors.length];
+            Post post = new Post();
+            post.setContent("post " + i);
+            post.setUser(author);
+            post.setCreatedAt(now.minusMinutes(i));
+            if (i % 2 == 0) {
+                post.getLikedUsers().add(viewer);
+            }
+            entityManager.persist(post);
+
+            for (int m = 0; m < 2; m++) {
+                Media media = new Media();
+                media.setUrl("http://localhost/media/" + i + "-" + m + ".png");
+                media.setType("image");
+                post.addMedia(media);
+                entityManager.persist(media);
+            }
+            for (int c = 0; c < 5; c++) {
+                Comment comment = new Comment();
+                comment.setContent("comment " + c);
+                comment.setCreatedAt(now.minusMinutes(i).plusSeconds(c));
+                comment.setUser(authors[c % authors.length]);
+                comment.setPost(post);
+                entityManager.persist(comment);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Post> page = postRepository.findAllWithUser();
+        List<PostDTO> dtos = postAssembler.toDTOs(page, viewer.getId());
+        // Touch everything a JSON serializer would
+        dtos.forEach(dto -> {
+            dto.getUser().getName();
+            dto.getComments().forEach(comment -> comment.getUser().getName());
+        });
+
+        // posts + authors, media, comment previews + authors, comment counts, viewer likes (cold LikedPostIndex)
+        assertEquals(5, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        statistics.clear();
+        postAssembler.toDTOs(postRepository.findAllWithUser(), viewer.getId());
+        // The viewer's likes are now answered from memory
+        assertEquals(4, statistics.getPrepareStatementCount());
+
+        assertEquals(PAGE_SIZE, dtos.size());
+        PostDTO newest = dtos.get(0);
+        assertEquals("post 0", newest.getContent());
+        assertTrue(newest.isLiked());
+        assertFalse(dtos.get(1).isLiked());
+        assertEquals(2, newest.getMediaUrls().size());
+        assertEquals(newest.getMediaUrls(), newest.getThumbnailUrls());
+        assertEquals(3, newest.getComments().size());
+        assertEquals(5, newest.getCommentCount());
+        assertEquals("comment 2", newest.getComments().get(0).getContent());
+        assertEquals("comment 4", newest.getComments().get(2).getContent());
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName(email.substring(0, email.indexOf('@')));
+        entityManager.persist(user);
+        return user;
+    }
+}
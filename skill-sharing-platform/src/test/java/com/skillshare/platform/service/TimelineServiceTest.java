@@ -0,0 +1,128 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.CursorPageDTO;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.model.SharedPost;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class TimelineServiceTest {
+
+    private static final int CAPACITY = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SharedPostRepository sharedPostRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private TimelineService timelines;
+
+    @BeforeEach
+    void setUp() {
+        PostCache postCache = mock(PostCache.class);
+        when(postCache.getPosts(anyList(), any())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> {
+                PostDTO post = new PostDTO();
+                post.setId(id);
+                return post;
+            }).collect(Collectors.toList());
+        });
+
+        timelines = new TimelineService();
+        ReflectionTestUtils.setField(timelines, "postRepository", postRepository);
+        ReflectionTestUtils.setField(timelines, "sharedPostRepository", sharedPostRepository);
+        ReflectionTestUtils.setField(timelines, "userRepository", userRepository);
+        ReflectionTestUtils.setField(timelines, "postCache", postCache);
+        ReflectionTestUtils.setField(timelines, "capacity", CAPACITY);
+        ReflectionTestUtils.setField(timelines, "maxUsers", 100);
+        ReflectionTestUtils.setField(timelines, "celebrityThreshold", 10_000);
+        timelines.init();
+    }
+
+    @Test
+    void pagesPastTheOldestEntryItHolds() {
+        User reader = user("reader@example.com");
+        User author = user("author@example.com");
+        User sharer = user("sharer@example.com");
+        follow(reader, author);
+        follow(reader, sharer);
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Long> newestFirst = new ArrayList<>();
+        for (int day = 0; day < 6; day++) {
+            newestFirst.add(0, post(author, start.plusDays(day)).getId());
+        }
+        // A stranger's post counts at the time it was shared into the timeline
+        Long shared = post(user("stranger@example.com"), start.minusDays(30)).getId();
+        share(sharer, shared, start.plusDays(1).plusHours(1));
+        newestFirst.add(4, shared);
+        entityManager.flush();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<PostDTO> page = timelines.getTimeline(reader.getId(), cursor, 2);
+            page.getItems().forEach(post -> seen.add(post.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(newestFirst, seen);
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private void follow(User follower, User followed) {
+        followed.getFollowers().add(follower);
+    }
+
+    private Post post(User author, LocalDateTime at) {
+        Post post = new Post();
+        post.setContent("Day " + at.getDayOfMonth());
+        post.setUser(author);
+        post.setCreatedAt(at);
+        entityManager.persist(post);
+        return post;
+    }
+
+    private void share(User sharer, Long postId, LocalDateTime at) {
+        SharedPost share = new SharedPost();
+        share.setUser(sharer);
+        share.setOriginalPost(entityManager.find(Post.class, postId));
+        share.setSharedAt(at);
+        entityManager.persist(share);
+    }
+}
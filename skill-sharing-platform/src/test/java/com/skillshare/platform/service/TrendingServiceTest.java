@@ -0,0 +1,72 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.SharedPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrendingServiceTest {
+
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private TrendingService trending;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        commentRepository = mock(CommentRepository.class);
+        trending = new TrendingService();
+        ReflectionTestUtils.setField(trending, "postRepository", postRepository);
+        ReflectionTestUtils.setField(trending, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(trending, "sharedPostRepository", mock(SharedPostRepository.class));
+        ReflectionTestUtils.setField(trending, "size", 2);
+        ReflectionTestUtils.setField(trending, "halfLifeHours", 6.0);
+        ReflectionTestUtils.setField(trending, "likeWeight", 1.5);
+        ReflectionTestUtils.setField(trending, "commentWeight", 2.0);
+        ReflectionTestUtils.setField(trending, "shareWeight", 3.5);
+        ReflectionTestUtils.setField(trending, "minScore", 0.05);
+        ReflectionTestUtils.setField(trending, "rebuildWindowHours", 168L);
+    }
+
+    @Test
+    void keepsTheTopPostsAsEngagementArrives() {
+        trending.rebuild();
+
+        trending.recordLike(1L);
+        trending.recordComment(2L);
+        trending.recordShare(3L);
+        assertEquals(List.of(3L, 2L), trending.getTrendingPostIds(10));
+
+        // Post 1 was pushed out of the top and has to come back from the tracked scores
+        trending.recordUnlike(3L);
+        trending.recordUnlike(3L);
+        assertEquals(List.of(2L, 1L), trending.getTrendingPostIds(10));
+
+        trending.remove(2L);
+        assertEquals(List.of(1L, 3L), trending.getTrendingPostIds(10));
+        assertEquals(List.of(1L), trending.getTrendingPostIds(1));
+    }
+
+    @Test
+    void olderEngagementCountsForLessAfterARebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        // Two half-lives old: four likes are worth a quarter of their weight today
+        when(postRepository.findLikeCountsCreatedSince(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, now.minusHours(12), 4}));
+        when(commentRepository.findActivitySince(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, now.minusMinutes(1)}));
+        trending.rebuild();
+
+        assertEquals(List.of(2L, 1L), trending.getTrendingPostIds(10));
+    }
+}
@@ -0,0 +1,72 @@
+package com.skillshare.platform.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void storesNewFilesInShardDirectories() throws Exception {
+        LocalStorageBackend backend = new LocalStorageBackend(uploadDir.toString(), 2, 2);
+        Path staged = Files.writeString(uploadDir.resolve(".abcdef.png.part"), "pixels");
+
+        backend.put("abcdef.png", staged, "image/png");
+
+        assertTrue(Files.exists(uploadDir.resolve("ab/cd/abcdef.png")));
+        assertEquals(uploadDir.resolve("ab/cd/abcdef.png"), backend.localPath("abcdef.png").orElseThrow());
+    }
+
+    @Test
+    void flatFilesKeepResolvingBeforeAndAfterMigration() throws Exception {
+        LocalStorageBackend backend = new LocalStorageBackend(uploadDir.toString(), 2, 2);
+        Files.writeString(uploadDir.resolve("0123abcd.jpg"), "old");
+        Files.writeString(uploadDir.resolve("4567abcd.jpg"), "old too");
+        Files.writeString(uploadDir.resolve(".89ab.jpg.part"), "still uploading");
+
+        assertTrue(backend.exists("0123abcd.jpg"));
+        assertEquals(uploadDir.resolve("0123abcd.jpg"), backend.localPath("0123abcd.jpg").orElseThrow());
+
+        assertEquals(1, backend.migrateFlatFiles(1));
+        assertEquals(1, backend.migrateFlatFiles(10));
+        assertEquals(0, backend.migrateFlatFiles(10));
+
+        assertFalse(Files.exists(uploadDir.resolve("0123abcd.jpg")));
+        assertTrue(Files.exists(uploadDir.resolve(".89ab.jpg.part")));
+        try (InputStream in = backend.open("4567abcd.jpg")) {
+            assertArrayEquals("old too".getBytes(), in.readAllBytes());
+        }
+        assertEquals(uploadDir.resolve("01/23/0123abcd.jpg"), backend.localPath("0123abcd.jpg").orElseThrow());
+    }
+
+    @Test
+    void listsShardedAndFlatFilesInNameOrderAcrossPages() throws Exception {
+        LocalStorageBackend backend = new LocalStorageBackend(uploadDir.toString(), 2, 2);
+        for (String name : List.of("ffff01.jpg", "0000aa.jpg", "abcd01.jpg", "abcd02.jpg")) {
+            backend.put(name, Files.writeString(uploadDir.resolve("." + name + ".part"), name), "image/jpeg");
+        }
+        Files.writeString(uploadDir.resolve("abcc99.jpg"), "flat");
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        for (List<StoredObject> page; !(page = backend.list(cursor, 2)).isEmpty(); ) {
+            page.forEach(object -> names.add(object.getName()));
+            cursor = page.get(page.size() - 1).getName();
+        }
+
+        assertEquals(List.of("0000aa.jpg", "abcc99.jpg", "abcd01.jpg", "abcd02.jpg", "ffff01.jpg"), names);
+    }
+}
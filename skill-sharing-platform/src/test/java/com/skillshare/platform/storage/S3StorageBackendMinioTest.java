@@ -0,0 +1,102 @@
+package com.skillshare.platform.storage;
+
+import com.skillshare.platform.config.AwsConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the backend against a real S3 API, with the client built the way AwsConfig builds it
+@Testcontainers(disabledWithoutDocker = true)
+class S3StorageBackendMinioTest {
+
+    private static final String BUCKET = "media-bucket";
+    // S3 rejects parts under 5 MB, so this is the smallest setting that still splits an upload
+    private static final long PART_BYTES = 5 * 1024 * 1024;
+
+    @Container
+    static final MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2024-10-13T13-34-11Z");
+
+    @TempDir
+    Path stagingDir;
+
+    private S3AsyncClient client;
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        AwsConfig config = new AwsConfig();
+        ReflectionTestUtils.setField(config, "accessKeyId", minio.getUserName());
+        ReflectionTestUtils.setField(config, "secretAccessKey", minio.getPassword());
+        ReflectionTestUtils.setField(config, "region", "us-east-1");
+        ReflectionTestUtils.setField(config, "endpoint", minio.getS3URL());
+        ReflectionTestUtils.setField(config, "pathStyleAccess", true);
+        ReflectionTestUtils.setField(config, "multipartThresholdBytes", PART_BYTES);
+        ReflectionTestUtils.setField(config, "partSizeBytes", PART_BYTES);
+        client = config.s3AsyncClient();
+        client.createBucket(request -> request.bucket(BUCKET)).join();
+
+        backend = new S3StorageBackend();
+        ReflectionTestUtils.setField(backend, "s3AsyncClient", client);
+        ReflectionTestUtils.setField(backend, "bucket", BUCKET);
+        ReflectionTestUtils.setField(backend, "prefix", "media/");
+        ReflectionTestUtils.setField(backend, "publicBaseUrl", minio.getS3URL() + "/" + BUCKET);
+        ReflectionTestUtils.setField(backend, "region", "us-east-1");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (StoredObject object : backend.list(null, 1000)) {
+            backend.delete(object.getName());
+        }
+        client.deleteBucket(request -> request.bucket(BUCKET)).join();
+        client.close();
+    }
+
+    @Test
+    void storesReadsListsAndDeletes() throws Exception {
+        byte[] small = "pixels".getBytes();
+        byte[] large = new byte[(int) PART_BYTES + 1024];
+        new Random(42).nextBytes(large);
+
+        backend.put("a.png", Files.write(stagingDir.resolve(".a.png.part"), small), "image/png");
+        // Above the threshold, so it goes up as a multipart upload
+        backend.put("b.mp4", Files.write(stagingDir.resolve(".b.mp4.part"), large), "video/mp4");
+        backend.put("c.png", Files.write(stagingDir.resolve(".c.png.part"), small), "image/png");
+
+        assertTrue(backend.exists("a.png"));
+        assertFalse(backend.exists("missing.png"));
+        try (InputStream in = backend.open("b.mp4")) {
+            assertArrayEquals(large, in.readAllBytes());
+        }
+
+        List<StoredObject> first = backend.list(null, 2);
+        assertEquals(List.of("a.png", "b.mp4"), names(first));
+        assertEquals(large.length, first.get(1).getSize());
+        assertEquals(List.of("c.png"), names(backend.list("b.mp4", 2)));
+
+        backend.delete("a.png");
+        assertFalse(backend.exists("a.png"));
+    }
+
+    private static List<String> names(List<StoredObject> objects) {
+        return objects.stream().map(StoredObject::getName).collect(Collectors.toList());
+    }
+}
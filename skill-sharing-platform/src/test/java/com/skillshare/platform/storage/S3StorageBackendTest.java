@@ -0,0 +1,170 @@
+package com.skillshare.platform.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class S3StorageBackendTest {
+
+    @TempDir
+    Path stagingDir;
+
+    private S3AsyncClient client;
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(S3AsyncClient.class);
+        backend = new S3StorageBackend();
+        ReflectionTestUtils.setField(backend, "s3AsyncClient", client);
+        ReflectionTestUtils.setField(backend, "bucket", "media-bucket");
+        ReflectionTestUtils.setField(backend, "prefix", "media/");
+        ReflectionTestUtils.setField(backend, "publicBaseUrl", "");
+        ReflectionTestUtils.setField(backend, "region", "eu-north-1");
+    }
+
+    @Test
+    void putUploadsUnderThePrefixAndDropsTheStagedFile() throws Exception {
+        Path staged = Files.writeString(stagingDir.resolve(".abcdef.png.part"), "pixels");
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        when(client.putObject(request.capture(), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        backend.put("abcdef.png", staged, "image/png");
+
+        assertEquals("media-bucket", request.getValue().bucket());
+        assertEquals("media/abcdef.png", request.getValue().key());
+        assertEquals("image/png", request.getValue().contentType());
+        assertFalse(Files.exists(staged));
+    }
+
+    @Test
+    void failedPutStillDropsTheStagedFile() throws Exception {
+        Path staged = Files.writeString(stagingDir.resolve(".abcdef.png.part"), "pixels");
+        when(client.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().statusCode(500).build()));
+
+        assertThrows(IOException.class, () -> backend.put("abcdef.png", staged, "image/png"));
+        assertFalse(Files.exists(staged));
+    }
+
+    @Test
+    void existsTreatsNotFoundAsMissingAndOtherErrorsAsFailures() throws Exception {
+        when(client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0, HeadObjectRequest.class).key();
+            switch (key) {
+                case "media/there.png":
+                    return CompletableFuture.completedFuture(HeadObjectResponse.builder().build());
+                case "media/no-such-key.png":
+                    return CompletableFuture.failedFuture(NoSuchKeyException.builder().build());
+                // HEAD responses have no body, so a missing key usually arrives as a bare 404
+                case "media/not-found.png":
+                    return CompletableFuture.failedFuture(S3Exception.builder().statusCode(404).build());
+                default:
+                    return CompletableFuture.failedFuture(S3Exception.builder().statusCode(403).build());
+            }
+        });
+
+        assertTrue(backend.exists("there.png"));
+        assertFalse(backend.exists("no-such-key.png"));
+        assertFalse(backend.exists("not-found.png"));
+        assertThrows(IOException.class, () -> backend.exists("forbidden.png"));
+    }
+
+    @Test
+    void openStreamsTheObjectBody() throws Exception {
+        byte[] content = "pixels".getBytes();
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        ResponseInputStream<GetObjectResponse> body =
+                new ResponseInputStream<>(GetObjectResponse.builder().build(), new ByteArrayInputStream(content));
+        doReturn(CompletableFuture.completedFuture(body))
+                .when(client).getObject(request.capture(), any(AsyncResponseTransformer.class));
+
+        try (InputStream in = backend.open("abcdef.png")) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals("media/abcdef.png", request.getValue().key());
+    }
+
+    @Test
+    void listPagesThroughKeysWithoutThePrefix() throws Exception {
+        List<String> keys = List.of("media/", "media/a.jpg", "media/b.jpg", "media/c.jpg");
+        List<ListObjectsV2Request> requests = new ArrayList<>();
+        when(client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            ListObjectsV2Request request = invocation.getArgument(0);
+            requests.add(request);
+            List<S3Object> page = keys.stream()
+                    .filter(key -> key.startsWith(request.prefix()))
+                    .filter(key -> request.startAfter() == null || key.compareTo(request.startAfter()) > 0)
+                    .limit(request.maxKeys())
+                    .map(key -> S3Object.builder().key(key).size(1L).lastModified(Instant.EPOCH).build())
+                    .collect(Collectors.toList());
+            return CompletableFuture.completedFuture(ListObjectsV2Response.builder().contents(page).build());
+        });
+
+        List<String> first = names(backend.list(null, 3));
+        List<String> second = names(backend.list(first.get(first.size() - 1), 3));
+        List<String> third = names(backend.list(second.get(second.size() - 1), 3));
+
+        // The folder marker takes a slot in the first page but is never returned
+        assertEquals(Arrays.asList("a.jpg", "b.jpg"), first);
+        assertEquals(List.of("c.jpg"), second);
+        assertTrue(third.isEmpty());
+        assertNull(requests.get(0).startAfter());
+        assertEquals("media/b.jpg", requests.get(1).startAfter());
+        assertEquals("media/", requests.get(1).prefix());
+        assertEquals(3, requests.get(1).maxKeys());
+    }
+
+    @Test
+    void publicUrlDefaultsToTheBucketHost() {
+        assertEquals("https://media-bucket.s3.eu-north-1.amazonaws.com/media/abcdef.png", backend.publicUrl("abcdef.png"));
+
+        ReflectionTestUtils.setField(backend, "publicBaseUrl", "https://cdn.example.com");
+        assertEquals("https://cdn.example.com/media/abcdef.png", backend.publicUrl("abcdef.png"));
+    }
+
+    private static List<String> names(List<StoredObject> objects) {
+        return objects.stream().map(StoredObject::getName).collect(Collectors.toList());
+    }
+}